@@ -0,0 +1,62 @@
+import benchmark.FractalOperations;
+
+import java.awt.Color;
+import java.awt.Graphics;
+import java.awt.image.BufferedImage;
+
+/**
+ * Adapter giving the benchmarks access to GenerateFractal
+ *
+ * @author Iulia Bejsovec
+ * @version 10/2026
+ */
+public class FractalTarget implements FractalOperations{
+    /** size of the geometry cache when it is turned on */
+    private static final long GEOMETRY_CACHE_BYTES = 32L * 1024 * 1024;
+    /** the measured fractal model */
+    private GenerateFractal fractals = new GenerateFractal();
+    /** recursion depth of the fractals */
+    private int depth;
+    /** radius ratio of the child to the parent */
+    private int ratio;
+    /** degree of the position of the child to the parent */
+    private int degree;
+
+    @Override
+    public void setData(int depth, int ratio, int degree){
+        this.depth = depth;
+        this.ratio = ratio;
+        this.degree = degree;
+        fractals.setData(depth, ratio, degree, fractals.getCactusColor(), fractals.getPearColor());
+    }
+
+    @Override
+    public void setColors(Color cactusColor, Color pearColor){
+        fractals.setData(depth, ratio, degree, cactusColor, pearColor);
+    }
+
+    @Override
+    public void setGeometryCache(boolean enabled){
+        fractals.getGeometryCache().setMaxBytes(enabled ? GEOMETRY_CACHE_BYTES : 0);
+    }
+
+    @Override
+    public void setParallel(boolean parallel){
+        fractals.setParallel(parallel);
+    }
+
+    @Override
+    public int generate(int width, int height){
+        return fractals.getData(width, height).getFractals().size();
+    }
+
+    @Override
+    public void draw(Graphics g){
+        fractals.draw(g);
+    }
+
+    @Override
+    public void drawRaster(BufferedImage image){
+        fractals.drawRaster(image);
+    }
+}
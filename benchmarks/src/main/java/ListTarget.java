@@ -0,0 +1,48 @@
+import benchmark.ListOperations;
+
+/**
+ * Adapter giving the benchmarks access to the custom ArrayList
+ *
+ * @author Iulia Bejsovec
+ * @version 10/2026
+ */
+public class ListTarget implements ListOperations{
+    /** the measured list */
+    private ArrayList<Integer> list = new ArrayList<>();
+
+    @Override
+    public void add(Integer value){
+        list.add(value);
+    }
+
+    @Override
+    public void clear(){
+        list.clear();
+    }
+
+    @Override
+    public void addAll(ListOperations other){
+        list.addAll(((ListTarget)other).list);
+    }
+
+    @Override
+    public void compressNulls(){
+        list.compressNulls();
+    }
+
+    @Override
+    public long sum(){
+        long sum = 0;
+        for (Integer value : list){
+            if (value != null){
+                sum += value;
+            }
+        }
+        return sum;
+    }
+
+    @Override
+    public int size(){
+        return list.size();
+    }
+}
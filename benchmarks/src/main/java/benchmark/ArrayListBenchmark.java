@@ -0,0 +1,128 @@
+package benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the custom ArrayList: add, clear, addAll, compressNulls and iteration
+ *
+ * @author Iulia Bejsovec
+ * @version 10/2026
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ArrayListBenchmark{
+    /** number of values in the lists */
+    @Param({"100", "10000"})
+    private int size;
+    /** values added to the lists, boxed once up front */
+    private Integer[] values;
+    /** list filled with the values */
+    private ListOperations source;
+    /** list the benchmarks write into */
+    private ListOperations target;
+
+    /**
+     * Creates the values and the lists
+     */
+    @Setup
+    public void setUp(){
+        values = new Integer[size];
+        for (int i = 0; i < size; i++){
+            values[i] = i;
+        }
+        source = Targets.list();
+        for (Integer value : values){
+            source.add(value);
+        }
+        target = Targets.list();
+    }
+
+    /**
+     * Adds all the values one by one, then clears the list
+     * @return size of the filled list
+     */
+    @Benchmark
+    public int addThenClear(){
+        for (Integer value : values){
+            target.add(value);
+        }
+        int filled = target.size();
+        target.clear();
+        return filled;
+    }
+
+    /**
+     * Adds the whole source list at once, then clears the list
+     * @return size of the filled list
+     */
+    @Benchmark
+    public int addAllThenClear(){
+        target.addAll(source);
+        int filled = target.size();
+        target.clear();
+        return filled;
+    }
+
+    /**
+     * Iterates over the source list with its iterator
+     * @return sum of the values
+     */
+    @Benchmark
+    public long iterate(){
+        return source.sum();
+    }
+
+    /**
+     * Measures compressNulls on a list with every third value null, refilled before every call
+     *
+     * @author Iulia Bejsovec
+     * @version 10/2026
+     */
+    @State(Scope.Thread)
+    public static class NullsState{
+        /** number of values in the list */
+        @Param({"100", "10000"})
+        private int size;
+        /** list with nulls to be compressed */
+        private ListOperations list = Targets.list();
+
+        /**
+         * Refills the list, every third value being null
+         */
+        @Setup(Level.Invocation)
+        public void fill(){
+            list.clear();
+            for (int i = 0; i < size; i++){
+                list.add(i % 3 == 0 ? null : i);
+            }
+        }
+    }
+
+    /**
+     * Moves the non-null values to the beginning of the list
+     * @param state list with nulls
+     * @return size of the compressed list
+     */
+    @Benchmark
+    public int compressNulls(NullsState state){
+        state.list.compressNulls();
+        return state.list.size();
+    }
+}
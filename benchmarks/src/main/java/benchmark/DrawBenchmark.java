@@ -0,0 +1,90 @@
+package benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures GenerateFractal.draw and drawRaster into an off-screen image
+ *
+ * @author Iulia Bejsovec
+ * @version 10/2026
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+public class DrawBenchmark{
+    /** width of the image */
+    private static final int WIDTH = 1400;
+    /** height of the image */
+    private static final int HEIGHT = 700;
+
+    /** recursion depth of the fractals */
+    @Param({"5", "10", "15"})
+    private int depth;
+    /** radius ratio of the child to the parent */
+    @Param({"45", "70"})
+    private int ratio;
+    /** the measured fractal model, generated once */
+    private FractalOperations fractals;
+    /** image the fractals are drawn into */
+    private BufferedImage image;
+    /** graphics of the image */
+    private Graphics2D graphics;
+
+    /**
+     * Generates the fractals and creates the image
+     */
+    @Setup
+    public void setUp(){
+        fractals = Targets.fractals();
+        fractals.setData(depth, ratio, 45);
+        fractals.generate(WIDTH, HEIGHT);
+        image = new BufferedImage(WIDTH, HEIGHT, BufferedImage.TYPE_INT_RGB);
+        graphics = image.createGraphics();
+    }
+
+    /**
+     * Releases the graphics of the image
+     */
+    @TearDown
+    public void tearDown(){
+        graphics.dispose();
+    }
+
+    /**
+     * Draws all the fractals
+     * @return the image drawn into
+     */
+    @Benchmark
+    public BufferedImage draw(){
+        fractals.draw(graphics);
+        return image;
+    }
+
+    /**
+     * Draws all the fractals straight into the pixels of the image
+     * @return the image drawn into
+     */
+    @Benchmark
+    public BufferedImage drawRaster(){
+        fractals.drawRaster(image);
+        return image;
+    }
+}
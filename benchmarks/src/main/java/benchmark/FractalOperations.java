@@ -0,0 +1,61 @@
+package benchmark;
+
+import java.awt.Color;
+import java.awt.Graphics;
+import java.awt.image.BufferedImage;
+
+/**
+ * Fractal model operations measured by the benchmarks. The program's classes live in the default package, which
+ * cannot be imported, so they are reached through this interface (see Targets)
+ *
+ * @author Iulia Bejsovec
+ * @version 10/2026
+ */
+public interface FractalOperations{
+    /**
+     * Sets the fractal data to the given values with the default colors
+     * @param depth     recursion depth of the fractals
+     * @param ratio     radius ratio of the child to the parent (40 to 70)
+     * @param degree    degree of the position of the child to the parent
+     */
+    void setData(int depth, int ratio, int degree);
+
+    /**
+     * Changes the colors, keeping the other settings
+     * @param cactusColor   color of the cactus
+     * @param pearColor     color of the pears
+     */
+    void setColors(Color cactusColor, Color pearColor);
+
+    /**
+     * Turns the geometry cache on or off, so every generation with new settings does the work again
+     * @param enabled   true to keep recently generated fractals, false to keep none
+     */
+    void setGeometryCache(boolean enabled);
+
+    /**
+     * Turns parallel generation on or off
+     * @param parallel  true to generate the subtrees in parallel
+     */
+    void setParallel(boolean parallel);
+
+    /**
+     * Generates the fractals for a panel of the given size
+     * @param width     width of the panel
+     * @param height    height of the panel
+     * @return number of generated fractals
+     */
+    int generate(int width, int height);
+
+    /**
+     * Draws the generated fractals
+     * @param g graphics object to be drawn on
+     */
+    void draw(Graphics g);
+
+    /**
+     * Draws the generated fractals straight into the pixels of the image
+     * @param image the image to draw into
+     */
+    void drawRaster(BufferedImage image);
+}
@@ -0,0 +1,74 @@
+package benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures GenerateFractal.getData across recursion depths, sequential and parallel. getData does nothing when
+ * nothing changed and the geometry cache answers repeated settings, so the cache is turned off and every call
+ * alternates between two panel widths with the same picture, forcing a whole generation each time (see
+ * IncrementalBenchmark for the incremental paths)
+ *
+ * @author Iulia Bejsovec
+ * @version 10/2026
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GenerationBenchmark{
+    /** width of the panel the fractals are generated for */
+    private static final int WIDTH = 1400;
+    /** height of the panel the fractals are generated for */
+    private static final int HEIGHT = 700;
+
+    /** recursion depth of the fractals */
+    @Param({"2", "5", "10", "15", "20"})
+    private int depth;
+    /** radius ratio of the child to the parent, the level of detail cuts small ratios early */
+    @Param({"45", "70"})
+    private int ratio;
+    /** whether the subtrees are generated in parallel */
+    @Param({"false", "true"})
+    private boolean parallel;
+    /** the measured fractal model */
+    private FractalOperations fractals;
+    /** width of the next generation, changes every call */
+    private int width;
+
+    /**
+     * Creates the fractal model with the benchmark parameters
+     */
+    @Setup
+    public void setUp(){
+        fractals = Targets.fractals();
+        fractals.setData(depth, ratio, 45);
+        fractals.setParallel(parallel);
+        fractals.setGeometryCache(false);
+        width = WIDTH;
+    }
+
+    /**
+     * Generates all the fractals, for a panel one pixel wider or narrower than the last time, which puts the main
+     * parent at the same place
+     * @return number of generated fractals
+     */
+    @Benchmark
+    public int getData(){
+        width = width == WIDTH ? WIDTH + 1 : WIDTH;
+        return fractals.generate(width, HEIGHT);
+    }
+}
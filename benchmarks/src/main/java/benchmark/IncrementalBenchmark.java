@@ -0,0 +1,133 @@
+package benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.awt.Color;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the incremental paths of GenerateFractal.getData: extending the fractals by more levels, truncating them
+ * to fewer levels and changing only the colors. Every call starts from fractals generated with the other setting
+ * in an invocation setup, and the geometry cache is turned off so the work is really done. The setup is not
+ * measured, but it makes the numbers of the shallowest depths a little less exact
+ *
+ * @author Iulia Bejsovec
+ * @version 10/2026
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class IncrementalBenchmark{
+    /** width of the panel the fractals are generated for */
+    private static final int WIDTH = 1400;
+    /** height of the panel the fractals are generated for */
+    private static final int HEIGHT = 700;
+    /** radius ratio of the child to the parent, big enough that the level of detail keeps all the levels */
+    private static final int RATIO = 70;
+    /** degree of the position of the child to the parent */
+    private static final int DEGREE = 45;
+    /** levels added or removed by one call */
+    private static final int LEVELS = 2;
+    /** colors the recolor switches between */
+    private static final Color[] COLORS = {new Color(34, 139, 34), new Color(154, 205, 50)};
+
+    /**
+     * The measured fractal model. Every state owns its model and prepares it itself, because JMH gives a state
+     * taken by a setup method an instance of its own
+     */
+    @State(Scope.Thread)
+    public abstract static class Model{
+        /** recursion depth of the deeper fractals */
+        @Param({"8", "12", "14"})
+        protected int depth;
+        /** the measured fractal model */
+        protected FractalOperations fractals;
+
+        /**
+         * Creates the fractal model with the geometry cache turned off
+         */
+        @Setup(Level.Trial)
+        public void setUp(){
+            fractals = Targets.fractals();
+            fractals.setGeometryCache(false);
+        }
+    }
+
+    /**
+     * Model starting every call from the shallower fractals
+     */
+    public static class Shallower extends Model{
+        /**
+         * Generates the shallower fractals, for extendDepth to start from
+         */
+        @Setup(Level.Invocation)
+        public void generateShallower(){
+            fractals.setData(depth - LEVELS, RATIO, DEGREE);
+            fractals.generate(WIDTH, HEIGHT);
+        }
+    }
+
+    /**
+     * Model starting every call from the deeper fractals
+     */
+    public static class Deeper extends Model{
+        /** index of the cactus color of the next recolor */
+        private int color;
+
+        /**
+         * Generates the deeper fractals, for truncateDepth and recolor to start from
+         */
+        @Setup(Level.Invocation)
+        public void generateDeeper(){
+            fractals.setData(depth, RATIO, DEGREE);
+            fractals.generate(WIDTH, HEIGHT);
+        }
+    }
+
+    /**
+     * Extends the shallower fractals by LEVELS levels
+     * @param model the model, generated with the shallower fractals
+     * @return number of fractals
+     */
+    @Benchmark
+    public int extendDepth(Shallower model){
+        model.fractals.setData(model.depth, RATIO, DEGREE);
+        return model.fractals.generate(WIDTH, HEIGHT);
+    }
+
+    /**
+     * Truncates the deeper fractals by LEVELS levels
+     * @param model the model, generated with the deeper fractals
+     * @return number of fractals
+     */
+    @Benchmark
+    public int truncateDepth(Deeper model){
+        model.fractals.setData(model.depth - LEVELS, RATIO, DEGREE);
+        return model.fractals.generate(WIDTH, HEIGHT);
+    }
+
+    /**
+     * Changes only the colors of the deeper fractals, which keeps every fractal
+     * @param model the model, generated with the deeper fractals
+     * @return number of fractals
+     */
+    @Benchmark
+    public int recolor(Deeper model){
+        model.color = 1 - model.color;
+        model.fractals.setColors(COLORS[model.color], COLORS[1 - model.color]);
+        return model.fractals.generate(WIDTH, HEIGHT);
+    }
+}
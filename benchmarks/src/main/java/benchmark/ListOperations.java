@@ -0,0 +1,44 @@
+package benchmark;
+
+/**
+ * Operations of the program's custom ArrayList measured by the benchmarks, reached through this interface because
+ * the list lives in the default package (see Targets)
+ *
+ * @author Iulia Bejsovec
+ * @version 10/2026
+ */
+public interface ListOperations{
+    /**
+     * Adds a value to the end of the list
+     * @param value the value to add
+     */
+    void add(Integer value);
+
+    /**
+     * Clears the list
+     */
+    void clear();
+
+    /**
+     * Adds all values of the other list to this list
+     * @param other list created by the same target class
+     */
+    void addAll(ListOperations other);
+
+    /**
+     * Moves all non-null values to the beginning of the list
+     */
+    void compressNulls();
+
+    /**
+     * Iterates over the list with its iterator
+     * @return sum of all non-null values
+     */
+    long sum();
+
+    /**
+     * Returns the current number of values in the list
+     * @return the current number of values in the list
+     */
+    int size();
+}
@@ -0,0 +1,48 @@
+package benchmark;
+
+/**
+ * Creates the default package adapters that implement the benchmark interfaces. Only the creation goes through
+ * reflection, the measured calls are plain interface calls
+ *
+ * @author Iulia Bejsovec
+ * @version 10/2026
+ */
+public final class Targets{
+    /**
+     * No instances, only static methods
+     */
+    private Targets(){
+    }
+
+    /**
+     * Creates a new adapter for the fractal model
+     * @return a new fractal model adapter
+     */
+    public static FractalOperations fractals(){
+        return create("FractalTarget", FractalOperations.class);
+    }
+
+    /**
+     * Creates a new adapter for an empty custom ArrayList
+     * @return a new list adapter
+     */
+    public static ListOperations list(){
+        return create("ListTarget", ListOperations.class);
+    }
+
+    /**
+     * Creates an instance of the given default package class
+     * @param className name of the class
+     * @param type      interface the class implements
+     * @param <T>       type of the interface
+     * @return a new instance of the class
+     * @throws IllegalStateException if the class cannot be created
+     */
+    private static <T> T create(String className, Class<T> type){
+        try {
+            return type.cast(Class.forName(className).getDeclaredConstructor().newInstance());
+        } catch (ReflectiveOperationException e){
+            throw new IllegalStateException("Cannot create " + className, e);
+        }
+    }
+}
@@ -0,0 +1,202 @@
+import java.util.Arrays;
+
+/**
+ * Sines and cosines of the directions used while generating the fractals. Every direction is a whole number of
+ * steps of the child degree (the main parent points one step right, every child turns one step right or left), so
+ * the whole tree only uses a few distinct angles. In fast mode the table is built once by composing rotations and a
+ * fractal costs two lookups instead of trigonometric calls. In exact mode the directions are the ones the caller
+ * accumulates by adding and subtracting the child degree, and rounding makes a step reachable through a few slightly
+ * different doubles; the table holds all of them (a few hundred at most), computed once with Math.sin and Math.cos
+ * when the kernel is created, and a direction is only looked up by its exact bits, so the fractals are the same as
+ * with Math.sin and Math.cos on every fractal. A direction the generator cannot reach is computed when it is asked
+ * for. Never changes once created, so it is safe to use from several threads at once
+ *
+ * @author Iulia Bejsovec
+ * @version 10/2026
+ */
+public class AngleKernel{
+    /** sines of the steps in fast mode, by step plus the offset */
+    private double[] sin;
+    /** cosines of the steps in fast mode, by step plus the offset */
+    private double[] cos;
+    /** every direction the generator can reach in exact mode, by step plus the offset */
+    private Angle[][] exact;
+    /** index of step 0 in the tables */
+    private int offset;
+    /** whether the values must match Math.sin and Math.cos exactly */
+    private boolean exactMode;
+
+    /**
+     * Creates the kernel for the given child degree
+     * @param degree    degree of one step in radians
+     * @param maxSteps  most steps in either direction that will be looked up
+     * @param exactMode true to match Math.sin and Math.cos exactly, false to use the composed rotations
+     * @throws IllegalArgumentException if maxSteps is negative
+     */
+    public AngleKernel(double degree, int maxSteps, boolean exactMode){
+        if (maxSteps < 0){
+            throw new IllegalArgumentException("Steps cannot be negative");
+        }
+        this.offset = maxSteps;
+        this.exactMode = exactMode;
+        if (exactMode){
+            buildExact(degree, maxSteps);
+            return;
+        }
+        sin = new double[2 * maxSteps + 1];
+        cos = new double[2 * maxSteps + 1];
+        double stepSin = Math.sin(degree);
+        double stepCos = Math.cos(degree);
+        sin[offset] = 0;
+        cos[offset] = 1;
+        for (int step = 1; step <= maxSteps; step++){
+            double previousSin = sin[offset + step - 1];
+            double previousCos = cos[offset + step - 1];
+            sin[offset + step] = previousSin * stepCos + previousCos * stepSin;
+            cos[offset + step] = previousCos * stepCos - previousSin * stepSin;
+            sin[offset - step] = -sin[offset + step];
+            cos[offset - step] = cos[offset + step];
+        }
+    }
+
+    /**
+     * Computes the angles of every direction a tree of maxSteps levels can reach, the way the generator accumulates
+     * them: the main parent points one step right, a parent looks up its own direction for the right child and its
+     * direction minus twice the child degree for the left child, and its children turn one step right or left
+     * @param degree    degree of one step in radians
+     * @param maxSteps  number of levels of parents
+     */
+    private void buildExact(double degree, int maxSteps){
+        int size = 2 * maxSteps + 1;
+        exact = new Angle[size][0];
+        // directions of the parents of one level, by step plus the offset
+        double[][] parents = new double[size][0];
+        if (offset + 1 < size){
+            parents[offset + 1] = new double[]{degree};
+        }
+        for (int level = 0; level < maxSteps; level++){
+            double[][] children = new double[size][0];
+            for (int index = 0; index < size; index++){
+                for (double direction : parents[index]){
+                    addAngle(index, direction);
+                    addAngle(index - 2, direction - degree*2);
+                    if (index + 1 < size){
+                        children[index + 1] = addDirection(children[index + 1], direction + degree);
+                    }
+                    if (index > 0){
+                        children[index - 1] = addDirection(children[index - 1], direction - degree);
+                    }
+                }
+            }
+            parents = children;
+        }
+    }
+
+    /**
+     * Adds the angle of a direction to the table unless the table already has it
+     * @param index     the step plus the offset, ignored outside the table
+     * @param direction the direction in radians
+     */
+    private void addAngle(int index, double direction){
+        if (index < 0 || index >= exact.length || find(exact[index], direction) != null){
+            return;
+        }
+        Angle[] angles = Arrays.copyOf(exact[index], exact[index].length + 1);
+        angles[angles.length - 1] = new Angle(direction);
+        exact[index] = angles;
+    }
+
+    /**
+     * Adds a direction to a set of directions unless it has the same bits as one already there
+     * @param directions    the directions
+     * @param direction     the direction to add
+     * @return the directions with the direction
+     */
+    private static double[] addDirection(double[] directions, double direction){
+        for (double other : directions){
+            if (Double.doubleToRawLongBits(other) == Double.doubleToRawLongBits(direction)){
+                return directions;
+            }
+        }
+        double[] added = Arrays.copyOf(directions, directions.length + 1);
+        added[directions.length] = direction;
+        return added;
+    }
+
+    /**
+     * Finds the angle with the same bits as the given direction
+     * @param angles    angles of one step
+     * @param direction the direction in radians
+     * @return the angle, null if there is none
+     */
+    private static Angle find(Angle[] angles, double direction){
+        long bits = Double.doubleToRawLongBits(direction);
+        for (Angle angle : angles){
+            if (Double.doubleToRawLongBits(angle.direction) == bits){
+                return angle;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Checks if the values match Math.sin and Math.cos exactly
+     * @return true in exact mode, false in fast mode
+     */
+    public boolean isExact(){
+        return exactMode;
+    }
+
+    /**
+     * Retrieves the sine of a direction
+     * @param step      the direction in whole steps of the child degree
+     * @param direction the direction in radians, as accumulated by the caller
+     * @return the sine of the direction
+     */
+    public double sin(int step, double direction){
+        return exactMode ? angle(step, direction).sin : sin[offset + step];
+    }
+
+    /**
+     * Retrieves the cosine of a direction
+     * @param step      the direction in whole steps of the child degree
+     * @param direction the direction in radians, as accumulated by the caller
+     * @return the cosine of the direction
+     */
+    public double cos(int step, double direction){
+        return exactMode ? angle(step, direction).cos : cos[offset + step];
+    }
+
+    /**
+     * Finds the exactly computed angle for the given direction, computing it if the table does not have it
+     * @param step      the direction in whole steps of the child degree
+     * @param direction the direction in radians
+     * @return the angle with the sine and cosine of the direction
+     */
+    private Angle angle(int step, double direction){
+        Angle angle = find(exact[offset + step], direction);
+        return angle != null ? angle : new Angle(direction);
+    }
+
+    /**
+     * A direction with its sine and cosine
+     */
+    private static class Angle{
+        /** the direction in radians */
+        private final double direction;
+        /** sine of the direction */
+        private final double sin;
+        /** cosine of the direction */
+        private final double cos;
+
+        /**
+         * Computes the sine and cosine of the direction
+         * @param direction the direction in radians
+         */
+        Angle(double direction){
+            this.direction = direction;
+            this.sin = Math.sin(direction);
+            this.cos = Math.cos(direction);
+        }
+    }
+}
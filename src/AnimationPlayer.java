@@ -0,0 +1,312 @@
+import javax.swing.Timer;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.util.Arrays;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.function.Consumer;
+
+/**
+ * Plays the cactus as an animation sweeping the child ratio and degree back and forth. A producer thread generates
+ * and rasterizes the frames ahead of time into a ring of a few reused images, and a Swing timer hands one finished
+ * frame per tick to the publisher on the event dispatch thread. A tick that finds no finished frame is a dropped
+ * frame: the last frame stays on screen and the drop is counted, also in the given metrics. The time between shown
+ * frames is kept for the last frames, so its percentiles show how smooth the animation runs. Uses its own fractal
+ * model, so the model being displayed is never touched
+ *
+ * @author Iulia Bejsovec
+ * @version 10/2026
+ */
+public class AnimationPlayer{
+    /** default frames per second */
+    private static final int DEFAULT_FPS = 30;
+    /** default number of frames in the ring */
+    private static final int DEFAULT_RING_SIZE = 4;
+    /** number of the last frame times kept for the percentiles */
+    private static final int FRAME_TIME_SAMPLES = 1024;
+    /** receives the frames on the event dispatch thread */
+    private Consumer<BufferedImage> publisher;
+    /** counts the dropped frames, null to only count them here */
+    private RenderMetrics metrics;
+    /** frames per second shown */
+    private int fps;
+    /** number of frames rendered ahead, at most */
+    private int ringSize;
+    /** finished frames in the order they were rendered */
+    private BlockingQueue<BufferedImage> ready;
+    /** frames free to be rendered into */
+    private BlockingQueue<BufferedImage> free;
+    /** thread rendering the frames, null while stopped */
+    private Thread producer;
+    /** timer showing the frames, null while stopped */
+    private Timer timer;
+    /** frame on screen, only used on the event dispatch thread */
+    private BufferedImage shown;
+    /** time the frame on screen was shown in nanoseconds, only used on the event dispatch thread */
+    private long shownNanos;
+    /** number of ticks that found no finished frame since the start */
+    private volatile long droppedFrames;
+    /** number of frames shown since the start */
+    private volatile long shownFrames;
+    /** times between the last shown frames in nanoseconds, used as a ring */
+    private final long[] frameTimes;
+    /** number of frame times recorded since the start */
+    private long frameTimeCount;
+
+    /**
+     * Creates the player handing the frames to the given publisher
+     * @param publisher receives the frames on the event dispatch thread
+     * @param metrics   counts the dropped frames too, null for none
+     * @throws IllegalArgumentException if publisher is null
+     */
+    public AnimationPlayer(Consumer<BufferedImage> publisher, RenderMetrics metrics){
+        if (publisher == null){
+            throw new IllegalArgumentException("Publisher cannot be null");
+        }
+        this.publisher = publisher;
+        this.metrics = metrics;
+        fps = DEFAULT_FPS;
+        ringSize = DEFAULT_RING_SIZE;
+        frameTimes = new long[FRAME_TIME_SAMPLES];
+    }
+
+    /**
+     * Starts the animation, stopping the one playing. The ratio and degree go from their first to their second
+     * value in the given number of frames and back again, over and over. Every animation gets its own fractal
+     * model, used only by its producer thread. Must be called on the event dispatch thread
+     * @param recursionDepth    depth of recursion of fractals
+     * @param palette           colors of the pears and of the levels of the cactus
+     * @param fromRatio         radius ratio of the child to the parent at the start of the sweep
+     * @param toRatio           radius ratio at the end of the sweep
+     * @param fromDegree        degree of the position of the child at the start of the sweep
+     * @param toDegree          degree at the end of the sweep
+     * @param sweepFrames       number of frames of one sweep
+     * @param width             width of the frames
+     * @param height            height of the frames
+     * @param background        background color of the frames
+     * @throws IllegalArgumentException if a setting is not valid for GenerateFractal.setData
+     * @throws IllegalArgumentException if the number of frames, width or height is not positive
+     * @throws IllegalArgumentException if background is null
+     */
+    public void start(int recursionDepth, LevelPalette palette, double fromRatio, double toRatio, int fromDegree,
+                      int toDegree, int sweepFrames, int width, int height, Color background){
+        if (sweepFrames <= 0 || width <= 0 || height <= 0){
+            throw new IllegalArgumentException("Frames, width and height must be bigger than 0");
+        }
+        if (background == null){
+            throw new IllegalArgumentException("Color cannot be null");
+        }
+        GenerateFractal fractals = new GenerateFractal();
+        fractals.setParallel(true);
+        // both ends of the sweep are checked before anything is started
+        fractals.setData(recursionDepth, fromRatio, fromDegree, palette);
+        fractals.setData(recursionDepth, toRatio, toDegree, palette);
+        stop();
+        droppedFrames = 0;
+        shownFrames = 0;
+        synchronized (frameTimes){
+            frameTimeCount = 0;
+        }
+        shownNanos = 0;
+        ready = new ArrayBlockingQueue<>(ringSize);
+        free = new ArrayBlockingQueue<>(ringSize);
+        for (int i = 0; i < ringSize; i++){
+            free.add(new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB));
+        }
+        BlockingQueue<BufferedImage> readyFrames = ready;
+        BlockingQueue<BufferedImage> freeFrames = free;
+        producer = new Thread(() -> produce(fractals, readyFrames, freeFrames, recursionDepth, palette, fromRatio,
+                                            toRatio, fromDegree, toDegree, sweepFrames, background),
+                              "fractal-animation");
+        producer.setDaemon(true);
+        producer.start();
+        timer = new Timer(1000 / fps, e -> showNextFrame());
+        timer.setCoalesce(true);
+        timer.start();
+    }
+
+    /**
+     * Stops the animation, the last frame stays with the publisher. Must be called on the event dispatch thread
+     */
+    public void stop(){
+        if (timer != null){
+            timer.stop();
+            timer = null;
+        }
+        if (producer != null){
+            producer.interrupt();
+            producer = null;
+        }
+        shown = null;
+    }
+
+    /**
+     * Checks if an animation is playing
+     * @return true if an animation is playing, false otherwise
+     */
+    public boolean isPlaying(){
+        return timer != null;
+    }
+
+    /**
+     * Renders frames one after another into the free frames of the ring until interrupted
+     * @param fractals          fractal model of the animation
+     * @param readyFrames       receives the finished frames
+     * @param freeFrames        frames to render into
+     * @param recursionDepth    depth of recursion of fractals
+     * @param palette           colors of the pears and of the levels of the cactus
+     * @param fromRatio         radius ratio at the start of the sweep
+     * @param toRatio           radius ratio at the end of the sweep
+     * @param fromDegree        degree at the start of the sweep
+     * @param toDegree          degree at the end of the sweep
+     * @param sweepFrames       number of frames of one sweep
+     * @param background        background color of the frames
+     */
+    private static void produce(GenerateFractal fractals, BlockingQueue<BufferedImage> readyFrames,
+                                BlockingQueue<BufferedImage> freeFrames, int recursionDepth, LevelPalette palette,
+                                double fromRatio, double toRatio, int fromDegree, int toDegree, int sweepFrames,
+                                Color background){
+        try {
+            for (long number = 0; !Thread.currentThread().isInterrupted(); number++){
+                BufferedImage image = freeFrames.take();
+                // goes from 0 to 1 in one sweep and back to 0 in the next
+                long step = number % (2L * sweepFrames);
+                double position = step <= sweepFrames ? (double)step / sweepFrames
+                                                      : 2 - (double)step / sweepFrames;
+                fractals.setData(recursionDepth, fromRatio + (toRatio - fromRatio) * position,
+                                 (int)Math.round(fromDegree + (toDegree - fromDegree) * position), palette);
+                Graphics2D g = image.createGraphics();
+                g.setColor(background);
+                g.fillRect(0, 0, image.getWidth(), image.getHeight());
+                g.dispose();
+                fractals.getData(image.getWidth(), image.getHeight());
+                fractals.drawRaster(image);
+                readyFrames.put(image);
+            }
+        } catch (InterruptedException e){
+            // stopped, the frames are left to the garbage collector
+        }
+    }
+
+    /**
+     * Shows the next finished frame and hands the frame shown before back to the ring, or counts a dropped frame if
+     * none is finished. Called by the timer on the event dispatch thread
+     */
+    private void showNextFrame(){
+        BufferedImage frame = ready.poll();
+        if (frame == null){
+            droppedFrames++;
+            if (metrics != null){
+                metrics.recordDroppedFrames(1);
+            }
+            return;
+        }
+        long now = System.nanoTime();
+        if (shownNanos != 0){
+            synchronized (frameTimes){
+                frameTimes[(int)(frameTimeCount % FRAME_TIME_SAMPLES)] = now - shownNanos;
+                frameTimeCount++;
+            }
+        }
+        shownNanos = now;
+        BufferedImage previous = shown;
+        shown = frame;
+        shownFrames++;
+        publisher.accept(frame);
+        // painting happens on this thread too, so the frame before is not painted any more
+        if (previous != null){
+            free.offer(previous);
+        }
+    }
+
+    /**
+     * Computes a percentile of the time between the last shown frames
+     * @param percentile    the percentile, 0 to 100
+     * @return the time in nanoseconds, 0 if fewer than two frames were shown
+     * @throws IllegalArgumentException if the percentile is not between 0 and 100
+     */
+    public long getFrameTimePercentile(double percentile){
+        if (percentile < 0 || percentile > 100){
+            throw new IllegalArgumentException("Percentile must be between 0 and 100");
+        }
+        long[] times;
+        synchronized (frameTimes){
+            times = Arrays.copyOf(frameTimes, (int)Math.min(frameTimeCount, FRAME_TIME_SAMPLES));
+        }
+        if (times.length == 0){
+            return 0;
+        }
+        Arrays.sort(times);
+        int rank = (int)Math.ceil(percentile / 100 * times.length) - 1;
+        return times[Math.max(0, Math.min(times.length - 1, rank))];
+    }
+
+    /**
+     * Returns the number of timer ticks that found no finished frame since the animation started
+     * @return the number of dropped frames
+     */
+    public long getDroppedFrames(){
+        return droppedFrames;
+    }
+
+    /**
+     * Returns the number of frames shown since the animation started
+     * @return the number of shown frames
+     */
+    public long getShownFrames(){
+        return shownFrames;
+    }
+
+    /**
+     * Sets the frames per second, used by the next start
+     * @param fps   frames per second, 1 to 1000
+     * @throws IllegalArgumentException if fps is not between 1 and 1000
+     */
+    public void setFps(int fps){
+        if (fps < 1 || fps > 1000){
+            throw new IllegalArgumentException("Frames per second must be between 1 and 1000");
+        }
+        this.fps = fps;
+    }
+
+    /**
+     * Retrieves the frames per second
+     * @return the frames per second
+     */
+    public int getFps(){
+        return fps;
+    }
+
+    /**
+     * Sets the number of frames rendered ahead, used by the next start. More frames ride out slow frames better but
+     * take more memory
+     * @param ringSize  number of frames in the ring, at least 2
+     * @throws IllegalArgumentException if ringSize is less than 2
+     */
+    public void setRingSize(int ringSize){
+        if (ringSize < 2){
+            throw new IllegalArgumentException("Ring size must be at least 2");
+        }
+        this.ringSize = ringSize;
+    }
+
+    /**
+     * Retrieves the number of frames rendered ahead
+     * @return the number of frames in the ring
+     */
+    public int getRingSize(){
+        return ringSize;
+    }
+
+    /**
+     * Describes the shown and dropped frames and the frame time percentiles
+     * @return the numbers on one line
+     */
+    @Override
+    public String toString(){
+        return String.format("frames: %d shown, %d dropped, frame time p50 %.1f ms, p95 %.1f ms, p99 %.1f ms",
+                             shownFrames, droppedFrames, getFrameTimePercentile(50) / 1e6,
+                             getFrameTimePercentile(95) / 1e6, getFrameTimePercentile(99) / 1e6);
+    }
+}
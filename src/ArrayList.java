@@ -1,6 +1,7 @@
 import java.util.Arrays;
 import java.util.Iterator;
 import java.util.NoSuchElementException;
+import java.util.function.Consumer;
 
 /**
  * Class can be used to store a list of values of type E.
@@ -105,9 +106,7 @@ public class ArrayList<E> implements Iterable<E>{
     public void add(int index, E value) {
         checkIndex(index);
         ensureCapacity(size + 1);
-        for (int i = size; i >= index + 1; i--) {
-            elementData[i] = elementData[i - 1];
-        }
+        System.arraycopy(elementData, index, elementData, index + 1, size - index);
         elementData[index] = value;
         size++;
     }
@@ -118,9 +117,7 @@ public class ArrayList<E> implements Iterable<E>{
      */
     public void remove(int index) {
         checkIndex(index);
-        for (int i = index; i < size - 1; i++) {
-            elementData[i] = elementData[i + 1];
-        }
+        System.arraycopy(elementData, index + 1, elementData, index, size - index - 1);
         elementData[size - 1] = null;
         size--;
     }
@@ -139,9 +136,7 @@ public class ArrayList<E> implements Iterable<E>{
      * Clears the list by setting every element to null and updates the size
      */
     public void clear() {
-        for (int i = 0; i < size; i++) {
-            elementData[i] = null;
-        }
+        Arrays.fill(elementData, 0, size, null);
         size = 0;
     }
 
@@ -150,9 +145,20 @@ public class ArrayList<E> implements Iterable<E>{
      * @param other the new list to be appended to this list
      */
     public void addAll(ArrayList<E> other) {
-        ensureCapacity(size + other.size);
-        for (E oneElement : other) {
-            add(oneElement);
+        int otherSize = other.size;
+        ensureCapacity(size + otherSize);
+        System.arraycopy(other.elementData, 0, elementData, size, otherSize);
+        size += otherSize;
+    }
+
+    /**
+     * Performs the given action for every element of the list in order, going by index so no iterator is created
+     * @param action the action to perform on every element
+     */
+    @Override
+    public void forEach(Consumer<? super E> action) {
+        for (int i = 0; i < size; i++) {
+            action.accept(elementData[i]);
         }
     }
 
@@ -165,12 +171,21 @@ public class ArrayList<E> implements Iterable<E>{
         
     }
 
+    /**
+     * Shrinks the underlying array to the current size of the list
+     */
+    public void trimToSize() {
+        if (elementData.length > size) {
+            elementData = Arrays.copyOf(elementData, size);
+        }
+    }
+
     /**
      * Ensures that the underlying array has the given capacity; if not, the size is doubled (or more if given capacity
      * is even larger)
      * @param capacity the new capacity that we need the list to be
      */
-    private void ensureCapacity(int capacity) {
+    public void ensureCapacity(int capacity) {
         if (capacity > elementData.length) {
             int newCapacity = elementData.length + elementData.length / 2  + 1;
             if (capacity > newCapacity) {
@@ -198,16 +213,16 @@ public class ArrayList<E> implements Iterable<E>{
     public void compressNulls(){
 
         int elementPointer = 0;
-        while (elementData[elementPointer] != null && elementPointer < this.size){
+        while (elementPointer < this.size && elementData[elementPointer] != null){
             elementPointer++;
-            if (elementPointer >= this.size){
-                return;
-            }
+        }
+        if (elementPointer >= this.size){
+            return;
         }
 
         int counter = elementPointer;
         int counterNulls = 1;
-        for (elementPointer++; elementPointer <= this.size; elementPointer++){
+        for (elementPointer++; elementPointer < this.size; elementPointer++){
             if (elementData[elementPointer] != null){
                 elementData[counter] = elementData[elementPointer];
                 counter++;
@@ -215,7 +230,8 @@ public class ArrayList<E> implements Iterable<E>{
                 counterNulls++;
             }
         }
-        this.size = this.size - counterNulls+1;
+        Arrays.fill(elementData, counter, this.size, null);
+        this.size = this.size - counterNulls;
     }
     
     /**
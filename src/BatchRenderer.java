@@ -0,0 +1,537 @@
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Renders the fractals without any window into a PNG file. The image is rendered in horizontal strips on a pool of
+ * threads and the strips are handed to the PNG writer in order as soon as they are done, so only a few strips are
+ * in memory at a time and posters of tens of thousands of pixels per side can be written
+ *
+ * @author Iulia Bejsovec
+ * @version 10/2026
+ */
+public class BatchRenderer{
+    /** default number of rows rendered by one task */
+    private static final int DEFAULT_STRIP_HEIGHT = 64;
+    /** prefix of the temporary file the image is written to until it is finished */
+    private static final String TEMPORARY_PREFIX = "render";
+    /** suffix of the temporary file the image is written to until it is finished */
+    private static final String TEMPORARY_SUFFIX = ".tmp";
+    /** image sizes checked with --check sizes, crossing the coordinates 1024, 2048 and 4096 */
+    private static final int[][] CHECK_SIZES = {{700, 500}, {1100, 1100}, {1440, 702}, {1920, 1000}, {2200, 2100},
+                                                {2560, 1300}, {4200, 2100}};
+    /** fractals to be rendered */
+    private GenerateFractal allFractals;
+    /** width of the image */
+    private int width;
+    /** height of the image */
+    private int height;
+    /** background color of the image */
+    private Color background;
+    /** number of rows rendered by one task */
+    private int stripHeight;
+    /** number of threads rendering the strips */
+    private int threads;
+
+    /**
+     * Creates the renderer for the given fractals and image size
+     * @param fractals      fractals to be rendered, with their data already set
+     * @param width         width of the image
+     * @param height        height of the image
+     * @param background    background color of the image
+     * @throws IllegalArgumentException if fractals or background is null
+     * @throws IllegalArgumentException if width or height is not positive
+     */
+    public BatchRenderer(GenerateFractal fractals, int width, int height, Color background){
+        if (fractals == null){
+            throw new IllegalArgumentException("Fractals cannot be null");
+        }
+        if (background == null){
+            throw new IllegalArgumentException("Color cannot be null");
+        }
+        if (width <= 0 || height <= 0){
+            throw new IllegalArgumentException("Width and height must be bigger than 0");
+        }
+        this.allFractals = fractals;
+        this.width = width;
+        this.height = height;
+        this.background = background;
+        this.stripHeight = DEFAULT_STRIP_HEIGHT;
+        this.threads = Runtime.getRuntime().availableProcessors();
+    }
+
+    /**
+     * Sets the number of rows rendered by one task
+     * @param stripHeight   number of rows in a strip
+     * @throws IllegalArgumentException if strip height is not positive
+     */
+    public void setStripHeight(int stripHeight){
+        if (stripHeight <= 0){
+            throw new IllegalArgumentException("Strip height must be positive");
+        }
+        this.stripHeight = stripHeight;
+    }
+
+    /**
+     * Sets the number of threads rendering the strips
+     * @param threads   number of threads
+     * @throws IllegalArgumentException if the number of threads is not positive
+     */
+    public void setThreads(int threads){
+        if (threads <= 0){
+            throw new IllegalArgumentException("Number of threads must be positive");
+        }
+        this.threads = threads;
+    }
+
+    /**
+     * Generates the fractals scaled by the given starting radius and writes the image as a PNG file, first to a
+     * temporary file which is then moved to its name, so a failed render leaves no partial image behind
+     * @param fileName          name of the file to write
+     * @param startingRadius    radius of the main parent
+     * @throws IOException if writing the file fails
+     */
+    public void render(String fileName, double startingRadius) throws IOException{
+        Path file = Paths.get(fileName).toAbsolutePath();
+        Path temporary = Files.createTempFile(file.getParent(), TEMPORARY_PREFIX, TEMPORARY_SUFFIX);
+        try {
+            writeImage(temporary, startingRadius);
+            moveInPlace(temporary, file);
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+    }
+
+    /**
+     * Moves a finished file to its name, atomically where the file system can
+     * @param temporary the finished file
+     * @param file      the name to move it to
+     * @throws IOException if moving fails
+     */
+    private static void moveInPlace(Path temporary, Path file) throws IOException{
+        try {
+            Files.move(temporary, file, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e){
+            Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /**
+     * Generates the fractals scaled by the given starting radius and writes the image as a PNG file, strip after strip
+     * @param file              the file to write
+     * @param startingRadius    radius of the main parent
+     * @throws IOException if writing the file fails
+     */
+    private void writeImage(Path file, double startingRadius) throws IOException{
+        allFractals.getData(width, height, startingRadius);
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try (PngWriter writer = new PngWriter(new BufferedOutputStream(Files.newOutputStream(file)), width, height)){
+            Deque<Future<int[]>> strips = new ArrayDeque<>();
+            int nextStrip = 0;
+            for (int y = 0; y < height; y += stripHeight){
+                // keep a bounded number of strips in flight so memory does not depend on the image height
+                while (nextStrip < height && strips.size() < threads * 2){
+                    int top = nextStrip;
+                    strips.add(pool.submit(() -> renderStrip(top, Math.min(stripHeight, height - top))));
+                    nextStrip += stripHeight;
+                }
+                writer.writeRows(strips.remove().get(), Math.min(stripHeight, height - y));
+            }
+        } catch (InterruptedException e){
+            Thread.currentThread().interrupt();
+            throw new IOException("Rendering was interrupted", e);
+        } catch (ExecutionException e){
+            throw new IOException("Rendering a strip failed", e.getCause());
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    /**
+     * Checks that rendering in strips gives exactly the pixels of rendering the whole image at once: renders the
+     * image whole and then strip after strip with the strip height and compares every pixel. Keeps the whole image
+     * in memory, so it is meant for sizes that fit
+     * @param startingRadius    radius of the main parent
+     * @return the number of pixels that differ, 0 if the strips match the whole image
+     */
+    public long checkStrips(double startingRadius){
+        allFractals.getData(width, height, startingRadius);
+        int[] whole = renderStrip(0, height);
+        long differences = 0;
+        for (int top = 0; top < height; top += stripHeight){
+            int rows = Math.min(stripHeight, height - top);
+            int[] strip = renderStrip(top, rows);
+            for (int i = 0; i < strip.length; i++){
+                if (strip[i] != whole[top * width + i]){
+                    differences++;
+                }
+            }
+        }
+        return differences;
+    }
+
+    /**
+     * Checks that rendering straight into the pixels gives exactly the pixels of drawing the whole image with
+     * Graphics: renders the image both ways and compares every pixel. Keeps both images in memory, so it is meant
+     * for sizes that fit
+     * @param startingRadius    radius of the main parent
+     * @return the number of pixels that differ, 0 if the rendering matches Graphics
+     */
+    public long checkRaster(double startingRadius){
+        allFractals.getData(width, height, startingRadius);
+        int[] raster = renderStrip(0, height);
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = image.createGraphics();
+        g.setColor(background);
+        g.fillRect(0, 0, width, height);
+        allFractals.draw(g);
+        g.dispose();
+        int[] drawn = ((DataBufferInt)image.getRaster().getDataBuffer()).getData();
+        long differences = 0;
+        for (int i = 0; i < drawn.length; i++){
+            if (raster[i] != drawn[i]){
+                differences++;
+            }
+        }
+        return differences;
+    }
+
+    /**
+     * Renders the given rows of the image
+     * @param top   first row of the strip
+     * @param rows  number of rows of the strip
+     * @return pixels of the strip as 0xRRGGBB, row after row
+     */
+    private int[] renderStrip(int top, int rows){
+        BufferedImage strip = new BufferedImage(width, rows, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = strip.createGraphics();
+        g.setColor(background);
+        g.fillRect(0, 0, width, rows);
+        g.dispose();
+        // the strips are already rendered in parallel, so the rows of a strip are not split any further
+        allFractals.drawRaster(strip, top, height, false);
+        return ((DataBufferInt)strip.getRaster().getDataBuffer()).getData();
+    }
+
+    /**
+     * Renders the fractals from the command line arguments into a PNG file without opening any window.
+     * Options (all optional): --depth, --ratio, --degree, --cactus, --pear, --tip (cactus color above the pears,
+     * fading the cactus from --cactus at the main parent to it), --background (colors as #RRGGBB),
+     * --width, --height, --radius (main parent's radius, fits the image by default), --lod (minimum subtree size in
+     * pixels), --strip (rows per task), --threads and --out (file name). With --tiles (directory), the tiles of the
+     * zoom levels 0 to --zoom are rendered into the tile cache in that directory instead of a PNG file. With
+     * --geometry (file), the fractals are loaded from that file when it holds the same settings and saved to it
+     * otherwise. An --out file ending in .svg or .pdf is written as vector graphics instead, dropping circles smaller
+     * than --tolerance (diameter in output units). With --sweep (directory) and --keys (keyframes as
+     * frame:depth:ratio:degree separated by commas, the first at frame 0), the frames of the sweep between the
+     * keyframes are rendered into numbered PNG files in that directory instead, see SweepExporter. With --check true,
+     * nothing is written: the image is rendered in strips, whole and with Graphics and the pixels compared, exiting
+     * with 1 if any differs. --check sizes does the same for sizes crossing the coordinates 1024, 2048 and 4096
+     * @param args  command line arguments as option value pairs
+     */
+    public static void main(String[] args){
+        System.setProperty("java.awt.headless", "true");
+        try {
+            GenerateFractal fractals = new GenerateFractal();
+            int depth = fractals.getRecursionDepth();
+            int ratio = fractals.getRadiusRatio();
+            int degree = (int)Math.round(Math.toDegrees(fractals.getDegree()));
+            Color cactusColor = fractals.getCactusColor();
+            Color pearColor = fractals.getPearColor();
+            Color tipColor = null;
+            Color background = Color.WHITE;
+            int width = 4000;
+            int height = 4000;
+            double radius = 0;
+            int stripHeight = DEFAULT_STRIP_HEIGHT;
+            int threads = Runtime.getRuntime().availableProcessors();
+            String fileName = "opuntia.png";
+            String tilesDirectory = null;
+            double tolerance = -1;
+            int zoom = 0;
+            String geometryFile = null;
+            String sweepDirectory = null;
+            String keys = null;
+            String check = "false";
+            double minSubtreeSize = fractals.getMinSubtreeSize();
+            if (args.length % 2 != 0){
+                throw new IllegalArgumentException("Every option needs a value");
+            }
+            for (int i = 0; i < args.length; i += 2){
+                String value = args[i + 1];
+                switch (args[i]){
+                    case "--depth":
+                        depth = parseInt(args[i], value);
+                        break;
+                    case "--ratio":
+                        ratio = parseInt(args[i], value);
+                        break;
+                    case "--degree":
+                        degree = parseInt(args[i], value);
+                        break;
+                    case "--cactus":
+                        cactusColor = parseColor(args[i], value);
+                        break;
+                    case "--pear":
+                        pearColor = parseColor(args[i], value);
+                        break;
+                    case "--tip":
+                        tipColor = parseColor(args[i], value);
+                        break;
+                    case "--background":
+                        background = parseColor(args[i], value);
+                        break;
+                    case "--width":
+                        width = parseInt(args[i], value);
+                        break;
+                    case "--height":
+                        height = parseInt(args[i], value);
+                        break;
+                    case "--radius":
+                        radius = parseDouble(args[i], value);
+                        break;
+                    case "--lod":
+                        minSubtreeSize = parseDouble(args[i], value);
+                        break;
+                    case "--strip":
+                        stripHeight = parseInt(args[i], value);
+                        break;
+                    case "--threads":
+                        threads = parseInt(args[i], value);
+                        break;
+                    case "--out":
+                        fileName = value;
+                        break;
+                    case "--tolerance":
+                        tolerance = parseDouble(args[i], value);
+                        break;
+                    case "--tiles":
+                        tilesDirectory = value;
+                        break;
+                    case "--zoom":
+                        zoom = parseInt(args[i], value);
+                        break;
+                    case "--geometry":
+                        geometryFile = value;
+                        break;
+                    case "--sweep":
+                        sweepDirectory = value;
+                        break;
+                    case "--keys":
+                        keys = value;
+                        break;
+                    case "--check":
+                        if (!value.equals("true") && !value.equals("false") && !value.equals("sizes")){
+                            throw new IllegalArgumentException("--check must be true, false or sizes: " + value);
+                        }
+                        check = value;
+                        break;
+                    default:
+                        throw new IllegalArgumentException("Unknown option: " + args[i]);
+                }
+            }
+            if (sweepDirectory != null){
+                exportSweep(Paths.get(sweepDirectory), keys, cactusColor, tipColor, pearColor, width, height,
+                            background, radius, minSubtreeSize, threads);
+                return;
+            }
+            Path geometry = geometryFile == null ? null : Paths.get(geometryFile);
+            if (geometry != null && Files.exists(geometry)){
+                fractals.loadGeometry(geometry);
+            }
+            if (tipColor != null){
+                fractals.setData(depth, ratio, degree, LevelPalette.gradient(cactusColor, tipColor, pearColor, depth));
+            } else {
+                fractals.setData(depth, ratio, degree, cactusColor, pearColor);
+            }
+            fractals.setMinSubtreeSize(minSubtreeSize);
+            if (tilesDirectory != null){
+                TilePyramid pyramid = new TilePyramid(fractals, width, height, background, Paths.get(tilesDirectory));
+                pyramid.setMaxMemoryTiles(0);
+                for (int level = 0; level <= zoom; level++){
+                    // a row of tiles at a time, so only one row is in memory
+                    for (int row = 0; row < pyramid.getRows(level); row++){
+                        pyramid.getTiles(level, new Rectangle(0, row, pyramid.getColumns(level), 1));
+                    }
+                }
+                return;
+            }
+            String lowerName = fileName.toLowerCase();
+            if (lowerName.endsWith(".svg") || lowerName.endsWith(".pdf")){
+                VectorExporter exporter = new VectorExporter(fractals, width, height, background);
+                if (tolerance >= 0){
+                    exporter.setTolerance(tolerance);
+                }
+                double startingRadius = radius > 0 ? radius : fractals.getFittingRadius(width, height);
+                if (lowerName.endsWith(".svg")){
+                    exporter.exportSvg(Paths.get(fileName), startingRadius);
+                } else {
+                    exporter.exportPdf(Paths.get(fileName), startingRadius);
+                }
+                return;
+            }
+            fractals.setParallel(true);
+            BatchRenderer renderer = new BatchRenderer(fractals, width, height, background);
+            renderer.setStripHeight(stripHeight);
+            renderer.setThreads(threads);
+            double startingRadius = radius > 0 ? radius : fractals.getFittingRadius(width, height);
+            if (check.equals("true")){
+                System.exit(check(renderer, width, height, startingRadius) ? 0 : 1);
+            }
+            if (check.equals("sizes")){
+                boolean match = true;
+                for (int[] size : CHECK_SIZES){
+                    BatchRenderer sizeRenderer = new BatchRenderer(fractals, size[0], size[1], background);
+                    sizeRenderer.setStripHeight(stripHeight);
+                    double sizeRadius = radius > 0 ? radius : fractals.getFittingRadius(size[0], size[1]);
+                    match &= check(sizeRenderer, size[0], size[1], sizeRadius);
+                }
+                System.exit(match ? 0 : 1);
+            }
+            boolean loaded = fractals.isGenerated(width, height, startingRadius);
+            renderer.render(fileName, startingRadius);
+            if (geometry != null && !loaded){
+                fractals.saveGeometry(geometry);
+            }
+        } catch (IllegalArgumentException e){
+            System.err.println(e.getMessage());
+            System.err.println("Usage: [--depth n] [--ratio 40-70] [--degree n] [--cactus #RRGGBB] [--pear #RRGGBB]" +
+                               " [--tip #RRGGBB] [--background #RRGGBB] [--width px] [--height px] [--radius px]" +
+                               " [--lod px] [--strip rows] [--threads n] [--out file.png]" +
+                               " [--tiles directory --zoom n] [--geometry file] [--tolerance units]" +
+                               " [--sweep directory --keys frame:depth:ratio:degree,...] [--check true|sizes]");
+            System.exit(1);
+        } catch (IOException e){
+            System.err.println("Could not write the image: " + e.getMessage());
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Checks the strips against the whole image and the whole image against Graphics, and reports the result
+     * @param renderer          renderer of the image
+     * @param width             width of the image
+     * @param height            height of the image
+     * @param startingRadius    radius of the main parent
+     * @return true if all the pixels match
+     */
+    private static boolean check(BatchRenderer renderer, int width, int height, double startingRadius){
+        long strips = renderer.checkStrips(startingRadius);
+        long raster = renderer.checkRaster(startingRadius);
+        System.out.println(width + "x" + height + ": " +
+                           (strips == 0 ? "strips match the whole image" :
+                                          strips + " pixels of the strips differ from the whole image") + ", " +
+                           (raster == 0 ? "the whole image matches Graphics" :
+                                          raster + " pixels of the whole image differ from Graphics"));
+        return strips == 0 && raster == 0;
+    }
+
+    /**
+     * Renders the frames of a sweep missing from the directory and reports how many were rendered
+     * @param directory         directory of the frames
+     * @param keys              keyframes as frame:depth:ratio:degree separated by commas
+     * @param cactusColor       color of the main parent
+     * @param tipColor          color of the cactus above the pears, null for one cactus color
+     * @param pearColor         color of the pears
+     * @param width             width of the frames
+     * @param height            height of the frames
+     * @param background        background color of the frames
+     * @param radius            radius of the main parent, 0 to fit every frame
+     * @param minSubtreeSize    minimum subtree size in pixels
+     * @param threads           number of threads rendering the frames
+     * @throws IllegalArgumentException if the keyframes are missing or not valid
+     * @throws IOException if writing the frames fails
+     */
+    private static void exportSweep(Path directory, String keys, Color cactusColor, Color tipColor, Color pearColor,
+                                    int width, int height, Color background, double radius, double minSubtreeSize,
+                                    int threads) throws IOException{
+        if (keys == null){
+            throw new IllegalArgumentException("--sweep needs --keys");
+        }
+        String[] keyframes = keys.split(",");
+        double[][] values = new double[keyframes.length][];
+        int maxDepth = 0;
+        for (int i = 0; i < keyframes.length; i++){
+            String[] parts = keyframes[i].trim().split(":");
+            if (parts.length != 4){
+                throw new IllegalArgumentException("--keys must be frame:depth:ratio:degree: " + keyframes[i]);
+            }
+            values[i] = new double[]{parseInt("--keys", parts[0]), parseInt("--keys", parts[1]),
+                                     parseDouble("--keys", parts[2]), parseDouble("--keys", parts[3])};
+            maxDepth = Math.max(maxDepth, (int)values[i][1]);
+        }
+        LevelPalette palette = tipColor == null ? new LevelPalette(pearColor, cactusColor)
+                                                : LevelPalette.gradient(cactusColor, tipColor, pearColor,
+                                                                        Math.max(2, maxDepth));
+        SweepExporter exporter = new SweepExporter(palette, width, height, background);
+        for (double[] keyframe : values){
+            exporter.addKeyframe((int)keyframe[0], (int)keyframe[1], keyframe[2], keyframe[3]);
+        }
+        exporter.setStartingRadius(radius);
+        exporter.setMinSubtreeSize(minSubtreeSize);
+        exporter.setThreads(threads);
+        int rendered = exporter.export(directory);
+        System.out.println("Rendered " + rendered + " of " + exporter.getFrameCount() + " frames into " +
+                           directory);
+    }
+
+    /**
+     * Parses an integer option value
+     * @param option    name of the option
+     * @param value     value to parse
+     * @return the parsed value
+     * @throws IllegalArgumentException if the value is not an integer
+     */
+    private static int parseInt(String option, String value){
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException e){
+            throw new IllegalArgumentException(option + " must be an integer: " + value);
+        }
+    }
+
+    /**
+     * Parses a decimal option value
+     * @param option    name of the option
+     * @param value     value to parse
+     * @return the parsed value
+     * @throws IllegalArgumentException if the value is not a number
+     */
+    private static double parseDouble(String option, String value){
+        try {
+            return Double.parseDouble(value);
+        } catch (NumberFormatException e){
+            throw new IllegalArgumentException(option + " must be a number: " + value);
+        }
+    }
+
+    /**
+     * Parses a color option value
+     * @param option    name of the option
+     * @param value     value to parse, as #RRGGBB
+     * @return the parsed color
+     * @throws IllegalArgumentException if the value is not a color
+     */
+    private static Color parseColor(String option, String value){
+        try {
+            return Color.decode(value);
+        } catch (NumberFormatException e){
+            throw new IllegalArgumentException(option + " must be a color as #RRGGBB: " + value);
+        }
+    }
+}
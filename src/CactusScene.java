@@ -0,0 +1,342 @@
+import java.awt.Rectangle;
+import java.awt.geom.Rectangle2D;
+
+/**
+ * A field of cacti: many instances of a few parameter sets. Every distinct parameter set is a prototype whose
+ * fractals are generated once and shared by all its instances, which only hold where they stand and how big they
+ * are. A prototype is generated for its biggest instance as shown, at a power of two size so zooming does not
+ * generate it again every time, and only ever grows. Drawn by SceneRenderer; only meant to be used on one thread
+ * such as the event dispatch thread
+ *
+ * @author Iulia Bejsovec
+ * @version 10/2026
+ */
+public class CactusScene{
+    /** side in scene pixels of the square an instance of scale 1 fits in */
+    public static final int BASE_SIZE = 256;
+    /** smallest side the fractals of a prototype are generated for */
+    private static final int MIN_PROTOTYPE_SIZE = 64;
+    /** biggest side the fractals of a prototype are generated for, bigger instances are scaled up */
+    private static final int MAX_PROTOTYPE_SIZE = 4096;
+    /** distinct parameter sets of the scene */
+    private ArrayList<Prototype> prototypes;
+    /** instances in drawing order */
+    private ArrayList<Instance> instances;
+    /** version of the instances, changes with every change */
+    private long version;
+
+    /**
+     * One parameter set of the scene with the fractals shared by its instances
+     */
+    public static class Prototype{
+        /** depth of recursion of fractals */
+        private final int recursionDepth;
+        /** radius ratio of the child to the parent */
+        private final double radiusRatio;
+        /** degree of the position of the child to the parent */
+        private final int degree;
+        /** colors of the pears and of the levels of the cactus */
+        private final LevelPalette palette;
+        /** fractals of the parameter set, generated in a square of the generated size */
+        private final GenerateFractal fractals;
+        /** side of the square the fractals were generated in, 0 before they are generated */
+        private int size;
+        /** side of the square the biggest instance needs */
+        private int neededSize;
+        /** bounds of the generated fractals */
+        private Rectangle bounds;
+
+        /**
+         * Creates the prototype of the given parameter set, without generating it
+         * @param recursionDepth    depth of recursion of fractals
+         * @param radiusRatio       radius ratio of the child to the parent
+         * @param degree            degree of the position of the child to the parent
+         * @param palette           colors of the pears and of the levels of the cactus
+         * @throws IllegalArgumentException if a setting is not valid for GenerateFractal.setData
+         */
+        private Prototype(int recursionDepth, double radiusRatio, int degree, LevelPalette palette){
+            fractals = new GenerateFractal();
+            fractals.setData(recursionDepth, radiusRatio, degree, palette);
+            // one size per prototype at a time, kept by the prototype itself
+            fractals.getGeometryCache().setMaxBytes(0);
+            this.recursionDepth = recursionDepth;
+            this.radiusRatio = radiusRatio;
+            this.degree = degree;
+            this.palette = palette;
+            neededSize = MIN_PROTOTYPE_SIZE;
+        }
+
+        /**
+         * Checks if the prototype has the given parameter set
+         * @param recursionDepth    depth of recursion of fractals
+         * @param radiusRatio       radius ratio of the child to the parent
+         * @param degree            degree of the position of the child to the parent
+         * @param palette           colors of the pears and of the levels of the cactus
+         * @return true if all the parameters are the same, false otherwise
+         */
+        private boolean hasParameters(int recursionDepth, double radiusRatio, int degree, LevelPalette palette){
+            return this.recursionDepth == recursionDepth && Double.compare(this.radiusRatio, radiusRatio) == 0 &&
+                   this.degree == degree && this.palette.equals(palette);
+        }
+
+        /**
+         * Generates the fractals again if an instance needs them bigger than they were generated
+         */
+        private void prepare(){
+            if (size >= neededSize){
+                return;
+            }
+            size = neededSize;
+            fractals.getData(size, size, fractals.getFittingRadius(size, size));
+            bounds = fractals.getSpatialIndex().getBounds();
+        }
+
+        /**
+         * Retrieves the fractals shared by the instances, generated in a square of getSize() with the bottom middle
+         * of the cactus at (getSize() / 2, getSize())
+         * @return the fractals of the prototype
+         */
+        public GenerateFractal getFractals(){
+            return fractals;
+        }
+
+        /**
+         * Retrieves the side of the square the fractals were generated in
+         * @return the side in pixels, 0 before they are generated
+         */
+        public int getSize(){
+            return size;
+        }
+
+        /**
+         * Retrieves the bounds of the generated fractals in the square they were generated in
+         * @return the bounds, null before they are generated
+         */
+        public Rectangle getBounds(){
+            return bounds == null ? null : new Rectangle(bounds);
+        }
+    }
+
+    /**
+     * One cactus of the scene: a prototype and where it stands
+     */
+    public static class Instance{
+        /** prototype drawn by the instance */
+        private final Prototype prototype;
+        /** x coordinate of the bottom middle of the cactus in the scene */
+        private final double x;
+        /** y coordinate of the bottom middle of the cactus in the scene */
+        private final double y;
+        /** size of the instance, the cactus fits a square of BASE_SIZE * scale scene pixels */
+        private final double scale;
+
+        /**
+         * Creates the instance
+         * @param prototype prototype drawn by the instance
+         * @param x         x coordinate of the bottom middle of the cactus in the scene
+         * @param y         y coordinate of the bottom middle of the cactus in the scene
+         * @param scale     size of the instance, 1 for a square of BASE_SIZE scene pixels
+         */
+        private Instance(Prototype prototype, double x, double y, double scale){
+            this.prototype = prototype;
+            this.x = x;
+            this.y = y;
+            this.scale = scale;
+        }
+
+        /**
+         * Retrieves the prototype drawn by the instance
+         * @return the prototype
+         */
+        public Prototype getPrototype(){
+            return prototype;
+        }
+
+        /**
+         * Retrieves the x coordinate of the bottom middle of the cactus
+         * @return the x coordinate in the scene
+         */
+        public double getX(){
+            return x;
+        }
+
+        /**
+         * Retrieves the y coordinate of the bottom middle of the cactus
+         * @return the y coordinate in the scene
+         */
+        public double getY(){
+            return y;
+        }
+
+        /**
+         * Retrieves the size of the instance
+         * @return the scale, 1 for a square of BASE_SIZE scene pixels
+         */
+        public double getScale(){
+            return scale;
+        }
+
+        /**
+         * Retrieves the side of the square the cactus fits in
+         * @return the side in scene pixels
+         */
+        public double getSize(){
+            return BASE_SIZE * scale;
+        }
+    }
+
+    /**
+     * Creates an empty scene
+     */
+    public CactusScene(){
+        prototypes = new ArrayList<>();
+        instances = new ArrayList<>();
+    }
+
+    /**
+     * Finds the prototype of a parameter set, adding it if the scene does not have it yet. Nothing is generated
+     * until the scene is drawn
+     * @param recursionDepth    depth of recursion of fractals
+     * @param radiusRatio       radius ratio of the child to the parent
+     * @param degree            degree of the position of the child to the parent
+     * @param palette           colors of the pears and of the levels of the cactus
+     * @return the index of the prototype
+     * @throws IllegalArgumentException if a setting is not valid for GenerateFractal.setData
+     */
+    public int addPrototype(int recursionDepth, double radiusRatio, int degree, LevelPalette palette){
+        for (int i = 0; i < prototypes.size(); i++){
+            if (prototypes.get(i).hasParameters(recursionDepth, radiusRatio, degree, palette)){
+                return i;
+            }
+        }
+        prototypes.add(new Prototype(recursionDepth, radiusRatio, degree, palette));
+        return prototypes.size() - 1;
+    }
+
+    /**
+     * Adds an instance of a prototype, drawn over the instances added before it
+     * @param prototype index of the prototype, see addPrototype
+     * @param x         x coordinate of the bottom middle of the cactus in the scene
+     * @param y         y coordinate of the bottom middle of the cactus in the scene
+     * @param scale     size of the instance, 1 for a square of BASE_SIZE scene pixels
+     * @throws IndexOutOfBoundsException if there is no such prototype
+     * @throws IllegalArgumentException if scale is not positive
+     */
+    public void addInstance(int prototype, double x, double y, double scale){
+        if (prototype < 0 || prototype >= prototypes.size()){
+            throw new IndexOutOfBoundsException("prototype: " + prototype);
+        }
+        if (!(scale > 0)){
+            throw new IllegalArgumentException("Scale must be positive");
+        }
+        instances.add(new Instance(prototypes.get(prototype), x, y, scale));
+        version++;
+    }
+
+    /**
+     * Adds an instance of a parameter set, sharing the fractals of the instances with the same parameters
+     * @param recursionDepth    depth of recursion of fractals
+     * @param radiusRatio       radius ratio of the child to the parent
+     * @param degree            degree of the position of the child to the parent
+     * @param palette           colors of the pears and of the levels of the cactus
+     * @param x                 x coordinate of the bottom middle of the cactus in the scene
+     * @param y                 y coordinate of the bottom middle of the cactus in the scene
+     * @param scale             size of the instance, 1 for a square of BASE_SIZE scene pixels
+     * @throws IllegalArgumentException if a setting is not valid for GenerateFractal.setData
+     * @throws IllegalArgumentException if scale is not positive
+     */
+    public void addInstance(int recursionDepth, double radiusRatio, int degree, LevelPalette palette, double x,
+                            double y, double scale){
+        addInstance(addPrototype(recursionDepth, radiusRatio, degree, palette), x, y, scale);
+    }
+
+    /**
+     * Removes all the instances and prototypes
+     */
+    public void clear(){
+        prototypes.clear();
+        instances.clear();
+        version++;
+    }
+
+    /**
+     * Generates the prototypes whose fractals are too small for their biggest instance as shown at the given zoom.
+     * Called by SceneRenderer before drawing
+     * @param viewScale number of view pixels per scene pixel
+     */
+    public void prepare(double viewScale){
+        for (int i = 0; i < instances.size(); i++){
+            Instance instance = instances.get(i);
+            double shown = Math.min(MAX_PROTOTYPE_SIZE, instance.getSize() * viewScale);
+            Prototype prototype = instance.getPrototype();
+            while (prototype.neededSize < shown){
+                prototype.neededSize *= 2;
+            }
+        }
+        for (int i = 0; i < prototypes.size(); i++){
+            prototypes.get(i).prepare();
+        }
+    }
+
+    /**
+     * Finds the area all the instances fit in, from the squares they fit in
+     * @return the bounds of the instances in the scene, empty if there are none
+     */
+    public Rectangle2D getBounds(){
+        Rectangle2D bounds = null;
+        for (int i = 0; i < instances.size(); i++){
+            Instance instance = instances.get(i);
+            Rectangle2D square = new Rectangle2D.Double(instance.getX() - instance.getSize() / 2,
+                                                        instance.getY() - instance.getSize(), instance.getSize(),
+                                                        instance.getSize());
+            if (bounds == null){
+                bounds = square;
+            } else {
+                bounds.add(square);
+            }
+        }
+        return bounds == null ? new Rectangle2D.Double() : bounds;
+    }
+
+    /**
+     * Retrieves an instance
+     * @param index the index of the instance, in drawing order
+     * @return the instance
+     */
+    public Instance getInstance(int index){
+        return instances.get(index);
+    }
+
+    /**
+     * Returns the number of instances
+     * @return the number of instances
+     */
+    public int size(){
+        return instances.size();
+    }
+
+    /**
+     * Retrieves a prototype
+     * @param index the index of the prototype
+     * @return the prototype
+     */
+    public Prototype getPrototype(int index){
+        return prototypes.get(index);
+    }
+
+    /**
+     * Returns the number of distinct parameter sets
+     * @return the number of prototypes
+     */
+    public int getPrototypeCount(){
+        return prototypes.size();
+    }
+
+    /**
+     * Retrieves the version of the instances
+     * @return the version, changes with every instance added and every clear
+     */
+    public long getVersion(){
+        return version;
+    }
+}
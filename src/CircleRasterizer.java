@@ -0,0 +1,689 @@
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferByte;
+import java.awt.image.DataBufferInt;
+import java.awt.image.Raster;
+import java.awt.image.SinglePixelPackedSampleModel;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Draws the fractals straight into the int pixels of an image, one row span per circle and row, instead of going
+ * through drawOval and fillOval, and gives exactly the pixels Java2D draws. Java2D rounds the edge of a circle in
+ * float at its coordinates, so the pixels of a diameter are only the same everywhere for small circles: the spans of
+ * a diameter up to MAX_SHARED_DIAMETER are taken once and shared, which was checked at every coordinate below
+ * MAX_PICTURE_SIZE. Bigger circles and circles cut by the border of the picture get their own spans, taken from
+ * Java2D drawing them at their coordinates in a picture of the same size, once per snapshot and picture size. The
+ * rows are split into bands drawn in parallel, each band drawing the circles it crosses in drawing order, so the
+ * image is the same whatever the bands are, and a strip of a picture gets exactly the rows of the whole picture.
+ * Pictures bigger than MAX_PICTURE_SIZE use the shared spans for every circle, which can leave a few edge pixels
+ * off from what Java2D draws
+ *
+ * @author Iulia Bejsovec
+ * @version 10/2026
+ */
+public class CircleRasterizer{
+    /** biggest diameter whose spans are taken from Java2D, bigger circles are filled row by row */
+    public static final int MAX_MASK_DIAMETER = 1 << 14;
+    /** rows of a circle drawn by Java2D at a time while taking its spans */
+    private static final int MASK_CHUNK_ROWS = 256;
+    /** rows drawn above and below a chunk, so the edges of the chunk do not change the rows taken from it */
+    private static final int MASK_MARGIN = 64;
+    /** biggest diameter whose spans are shared, Java2D draws it with the same pixels wherever it lies */
+    private static final int MAX_SHARED_DIAMETER = 51;
+    /** biggest width and height of a picture whose circles get their own spans */
+    private static final int MAX_PICTURE_SIZE = 1 << 14;
+    /** fewest rows of a band drawn by one task */
+    private static final int MIN_BAND_ROWS = 32;
+    /** most longs of the bitmap of covered pixels used to find hidden fractals, 64 MB */
+    private static final long MAX_COVERAGE_WORDS = 1L << 23;
+    /** spans of every diameter drawn so far */
+    private ConcurrentHashMap<Integer, Spans> spans;
+    /** own spans of the circles of the last picture drawn, shared by its strips */
+    private PictureSpans pictureSpans;
+    /** bitmap of covered pixels kept between the searches for hidden fractals, null before the first */
+    private long[] coverageBits;
+
+    /**
+     * Creates a rasterizer without any spans, they are taken when a diameter is first drawn
+     */
+    public CircleRasterizer(){
+        spans = new ConcurrentHashMap<>();
+    }
+
+    /**
+     * Checks if the rasterizer can draw into the given image with the given colors: the image must keep every
+     * pixel in one int and the colors must be opaque, because translucent colors are blended by Java2D
+     * @param image     the image to draw into
+     * @param colors    the colors to draw with
+     * @return true if the rasterizer can draw into the image, false if it must be drawn with Graphics
+     */
+    public static boolean canDraw(BufferedImage image, Color... colors){
+        int type = image.getType();
+        if (type != BufferedImage.TYPE_INT_RGB && type != BufferedImage.TYPE_INT_ARGB &&
+            type != BufferedImage.TYPE_INT_ARGB_PRE && type != BufferedImage.TYPE_INT_BGR){
+            return false;
+        }
+        for (Color color : colors){
+            if (color.getAlpha() != 255){
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Draws the fractals of the snapshot into the image like GenerateFractal.draw on a picture of the image's width
+     * and the given height, the image showing the rows of the picture from the given top row down. Every fractal
+     * gets the color of its level from the palette, looked up in a table of pixel values, so more colors cost
+     * nothing while drawing
+     * @param frame         snapshot of the fractals, acquired by the caller
+     * @param image         the image to draw into
+     * @param top           row of the picture shown in the first row of the image
+     * @param pictureHeight height of the picture
+     * @param palette       colors of the levels
+     * @param parallel      whether the bands are drawn in parallel
+     * @throws IllegalArgumentException if the image or the colors cannot be drawn by the rasterizer (see canDraw)
+     * @throws IllegalArgumentException if the rows of the image are not all inside the picture
+     */
+    public void draw(FractalSnapshot frame, BufferedImage image, int top, int pictureHeight, LevelPalette palette,
+                     boolean parallel){
+        if (!canDraw(image, palette.getColors())){
+            throw new IllegalArgumentException("Image and colors must be opaque int pixels");
+        }
+        if (top < 0 || (long)top + image.getHeight() > pictureHeight){
+            throw new IllegalArgumentException("Image rows must be inside the picture");
+        }
+        Raster raster = image.getRaster();
+        int stride = ((SinglePixelPackedSampleModel)raster.getSampleModel()).getScanlineStride();
+        DataBufferInt buffer = (DataBufferInt)raster.getDataBuffer();
+        int origin = buffer.getOffset() - raster.getSampleModelTranslateY() * stride -
+                     raster.getSampleModelTranslateX();
+        int[] levelPixels = palette.getLevelEntries(frame.getTopLevel());
+        int[] entryPixels = new int[palette.size()];
+        for (int entry = 0; entry < entryPixels.length; entry++){
+            entryPixels[entry] = pixelValue(image.getType(), palette.getColor(entry));
+        }
+        for (int level = 1; level < levelPixels.length; level++){
+            levelPixels[level] = entryPixels[levelPixels[level]];
+        }
+        Target target = new Target(buffer.getData(), origin, stride, image.getWidth(), image.getHeight(), top,
+                                   levelPixels, getPictureSpans(frame, image.getWidth(), pictureHeight));
+        BandTask task = new BandTask(this, frame, target, 0, image.getHeight());
+        if (parallel && image.getHeight() > MIN_BAND_ROWS){
+            ForkJoinPool.commonPool().invoke(task);
+        } else {
+            task.drawBand();
+        }
+    }
+
+    /**
+     * Finds the int Java2D stores for the given color in an image of the given type, which is not always what the
+     * color model gives (an int RGB pixel keeps the alpha bits), by letting Java2D fill one pixel
+     * @param type  type of the image
+     * @param color the color
+     * @return the pixel value of the color
+     */
+    private static int pixelValue(int type, Color color){
+        BufferedImage pixel = new BufferedImage(1, 1, type);
+        Graphics2D g = pixel.createGraphics();
+        g.setColor(color);
+        g.fillRect(0, 0, 1, 1);
+        g.dispose();
+        return ((DataBufferInt)pixel.getRaster().getDataBuffer()).getData()[0];
+    }
+
+    /**
+     * Draws one circle into the rows of a band
+     * @param target    pixels and colors to draw with
+     * @param index     index of the fractal
+     * @param x         x coordinate of the left edge of the circle's bounding box
+     * @param y         y coordinate of the top edge of the bounding box, in the image's rows
+     * @param diameter  diameter of the circle
+     * @param color     pixel value of the color
+     * @param firstRow  first row of the band
+     * @param endRow    row after the last row of the band
+     */
+    private void drawCircle(Target target, int index, int x, int y, int diameter, int color, int firstRow,
+                            int endRow){
+        int from = Math.max(firstRow, y);
+        int to = Math.min(endRow, y + diameter + 1);
+        if (from >= to || x >= target.width || x + diameter < 0){
+            return;
+        }
+        Spans circle = target.ownSpans.get(index);
+        if (circle == null){
+            if (diameter > MAX_MASK_DIAMETER){
+                drawRows(target, x, y, diameter, color, from, to);
+                return;
+            }
+            circle = getSpans(diameter);
+        }
+        for (int row = from; row < to; row++){
+            int spanLeft = Math.max(0, x + circle.left[row - y - circle.first]);
+            int spanRight = Math.min(target.width, x + circle.right[row - y - circle.first]);
+            if (spanLeft < spanRight){
+                int start = target.origin + row * target.stride;
+                Arrays.fill(target.pixels, start + spanLeft, start + spanRight, color);
+            }
+        }
+    }
+
+    /**
+     * Finds the fractals that leave no pixel when all of them are drawn, because fractals drawn after them cover
+     * them completely, possibly several together. Goes from the last drawn fractal to the first, keeping a bitmap
+     * of the pixels covered so far: a fractal is hidden when its circle grown by a pixel is all covered, and
+     * otherwise its circle shrunk by a pixel is added to the covered pixels. The pixel of slack on both sides keeps
+     * the answer right wherever Java2D rounds the edge of a circle differently, so drawing without the hidden
+     * fractals gives the same image. Pixels outside the fractals never count as covered. The bitmap is kept for the
+     * next search
+     * @param fractals  the fractals in drawing order
+     * @return the indexes of the hidden fractals, empty if the fractals cover too big an area for the bitmap
+     */
+    public synchronized BitSet findHidden(FractalBuffer fractals){
+        BitSet hidden = new BitSet();
+        if (fractals.size() == 0){
+            return hidden;
+        }
+        long left = Long.MAX_VALUE;
+        long top = Long.MAX_VALUE;
+        long right = Long.MIN_VALUE;
+        long bottom = Long.MIN_VALUE;
+        for (int i = 0; i < fractals.size(); i++){
+            int radius = fractals.getRadius(i);
+            left = Math.min(left, fractals.getCenterX(i) - radius);
+            top = Math.min(top, fractals.getCenterY(i) - radius);
+            right = Math.max(right, fractals.getCenterX(i) + radius);
+            bottom = Math.max(bottom, fractals.getCenterY(i) + radius);
+        }
+        // one pixel of border around the fractals, so the grown circles stay inside the bitmap
+        long words = (right - left + 3 + 63) >>> 6;
+        long rows = bottom - top + 3;
+        if (rows * words > MAX_COVERAGE_WORDS){
+            return hidden;
+        }
+        int size = (int)(words * rows);
+        if (coverageBits == null || coverageBits.length < size){
+            coverageBits = new long[size];
+        } else {
+            Arrays.fill(coverageBits, 0, size, 0L);
+        }
+        Coverage covered = new Coverage((int)left - 1, (int)top - 1, (int)words, (int)rows, coverageBits);
+        for (int i = fractals.size() - 1; i >= 0; i--){
+            int radius = fractals.getRadius(i);
+            int diameter = radius * 2;
+            int x = fractals.getCenterX(i) - radius;
+            int y = fractals.getCenterY(i) - radius;
+            if (diameter + 2 > MAX_MASK_DIAMETER){
+                continue;
+            }
+            if (covered.contains(getSpans(diameter + 2), x - 1, y - 1)){
+                hidden.set(i);
+            } else if (diameter >= 2){
+                covered.add(getSpans(diameter - 2), x + 1, y + 1);
+            }
+        }
+        return hidden;
+    }
+
+    /**
+     * Retrieves the spans of a diameter, taking them from Java2D the first time
+     * @param diameter  the diameter, at most MAX_MASK_DIAMETER
+     * @return the spans of the circle
+     */
+    private Spans getSpans(int diameter){
+        return spans.computeIfAbsent(diameter, CircleRasterizer::takeSpans);
+    }
+
+    /**
+     * Fills the rows of a circle too big for spans by computing where each row crosses the circle, like the big
+     * fractals of a zoomed view
+     * @param target    pixels and colors to draw with
+     * @param x         x coordinate of the left edge of the circle's bounding box
+     * @param y         y coordinate of the top edge of the bounding box, in the image's rows
+     * @param diameter  diameter of the circle
+     * @param color     pixel value of the color
+     * @param from      first row to fill
+     * @param to        row after the last row to fill
+     */
+    private static void drawRows(Target target, int x, int y, int diameter, int color, int from, int to){
+        double radius = diameter / 2.0;
+        double centerX = x + radius;
+        double centerY = y + radius;
+        for (int row = from; row < to; row++){
+            double dy = row - centerY;
+            double halfWidth = Math.sqrt(Math.max(0, (radius - dy) * (radius + dy)));
+            int spanLeft = (int)Math.max(0, Math.floor(centerX - halfWidth));
+            int spanRight = (int)Math.min(target.width, Math.ceil(centerX + halfWidth) + 1);
+            if (spanLeft < spanRight){
+                int start = target.origin + row * target.stride;
+                Arrays.fill(target.pixels, start + spanLeft, start + spanRight, color);
+            }
+        }
+    }
+
+    /**
+     * Takes the spans of a diameter from Java2D: draws drawOval and fillOval of the diameter a chunk of rows at a
+     * time and records the first and last pixel of every row. The pixels of a row are always next to each other
+     * @param diameter  the diameter
+     * @return the spans of the circle
+     */
+    private static Spans takeSpans(int diameter){
+        int size = diameter + 2 * MASK_MARGIN + 1;
+        int chunkRows = Math.min(MASK_CHUNK_ROWS, diameter + 1);
+        BufferedImage chunk = new BufferedImage(size, chunkRows + 2 * MASK_MARGIN, BufferedImage.TYPE_BYTE_GRAY);
+        byte[] pixels = ((DataBufferByte)chunk.getRaster().getDataBuffer()).getData();
+        Spans circle = new Spans(diameter + 1);
+        for (int chunkTop = 0; chunkTop <= diameter; chunkTop += chunkRows){
+            Arrays.fill(pixels, (byte)0);
+            Graphics2D g = chunk.createGraphics();
+            g.setColor(Color.WHITE);
+            g.drawOval(MASK_MARGIN, MASK_MARGIN - chunkTop, diameter, diameter);
+            g.fillOval(MASK_MARGIN, MASK_MARGIN - chunkTop, diameter, diameter);
+            g.dispose();
+            for (int row = chunkTop; row < Math.min(chunkTop + chunkRows, diameter + 1); row++){
+                readRow(pixels, (row - chunkTop + MASK_MARGIN) * size, size, MASK_MARGIN, circle, row);
+            }
+        }
+        return circle;
+    }
+
+    /**
+     * Retrieves the own spans of the circles of a picture drawn from the snapshot, taking them when another snapshot
+     * or picture size was drawn last. The strips of a picture drawn one after another or at the same time take them
+     * only once
+     * @param frame     snapshot of the fractals
+     * @param width     width of the picture
+     * @param height    height of the picture
+     * @return the own spans of the circles by their index
+     */
+    private synchronized HashMap<Integer, Spans> getPictureSpans(FractalSnapshot frame, int width, int height){
+        PictureSpans last = pictureSpans;
+        if (last == null || last.frame != frame || last.width != width || last.height != height){
+            last = new PictureSpans(frame, width, height, takePictureSpans(frame, width, height));
+            pictureSpans = last;
+        }
+        return last.spans;
+    }
+
+    /**
+     * Takes the own spans of the circles of a picture that cannot share the spans of their diameter: the circles
+     * bigger than MAX_SHARED_DIAMETER and the ones cut by the border of the picture. Java2D draws every one of them
+     * at its coordinates into an image of the picture's size, so it rounds and cuts the circle like when drawing
+     * the picture
+     * @param frame     snapshot of the fractals
+     * @param width     width of the picture
+     * @param height    height of the picture
+     * @return the own spans of the circles by their index, empty if the picture is bigger than MAX_PICTURE_SIZE
+     */
+    private static HashMap<Integer, Spans> takePictureSpans(FractalSnapshot frame, int width, int height){
+        HashMap<Integer, Spans> own = new HashMap<>();
+        if (width > MAX_PICTURE_SIZE || height > MAX_PICTURE_SIZE){
+            return own;
+        }
+        IntArrayList inside = new IntArrayList();
+        frame.getSpatialIndex().query(new Rectangle(0, 0, width, height), inside);
+        BufferedImage picture = null;
+        for (int i = 0; i < inside.size(); i++){
+            int index = inside.get(i);
+            if (frame.isHidden(index)){
+                continue;
+            }
+            int radius = frame.getRadius(index);
+            int diameter = radius * 2;
+            int x = frame.getCenterX(index) - radius;
+            int y = frame.getCenterY(index) - radius;
+            if (diameter <= MAX_SHARED_DIAMETER && x >= 0 && y >= 0 && x + diameter < width &&
+                y + diameter < height){
+                continue;
+            }
+            if (picture == null){
+                picture = new BufferedImage(width, height, BufferedImage.TYPE_BYTE_GRAY);
+            }
+            own.put(index, takeOwnSpans(picture, x, y, diameter));
+        }
+        return own;
+    }
+
+    /**
+     * Takes the spans of one circle from Java2D drawing it at its coordinates into an empty image of the picture's
+     * size, and empties the image again
+     * @param picture   image of the picture's size, all 0
+     * @param x         x coordinate of the left edge of the circle's bounding box
+     * @param y         y coordinate of the top edge of the bounding box
+     * @param diameter  diameter of the circle
+     * @return the spans of the rows of the circle inside the picture
+     */
+    private static Spans takeOwnSpans(BufferedImage picture, int x, int y, int diameter){
+        byte[] pixels = ((DataBufferByte)picture.getRaster().getDataBuffer()).getData();
+        int width = picture.getWidth();
+        Graphics2D g = picture.createGraphics();
+        g.setColor(Color.WHITE);
+        g.drawOval(x, y, diameter, diameter);
+        g.fillOval(x, y, diameter, diameter);
+        g.dispose();
+        int firstRow = Math.max(0, y);
+        int endRow = (int)Math.min(picture.getHeight(), (long)y + diameter + 1);
+        int from = Math.max(0, x);
+        int to = (int)Math.min(width, (long)x + diameter + 1);
+        Spans circle = new Spans(firstRow - y, Math.max(0, endRow - firstRow));
+        for (int row = firstRow; row < endRow; row++){
+            int start = row * width + from;
+            readRow(pixels, start, to - from, x - from, circle, row - firstRow);
+            Arrays.fill(pixels, start, start + to - from, (byte)0);
+        }
+        return circle;
+    }
+
+    /**
+     * Records the first and last drawn pixel of a row of an image a circle was drawn into
+     * @param pixels    pixels of the image, 0 where nothing was drawn
+     * @param start     index of the first pixel of the row
+     * @param width     width of the image
+     * @param x         column of the left edge of the circle's bounding box in the image
+     * @param circle    spans the row is recorded in
+     * @param row       index of the row in the spans
+     */
+    private static void readRow(byte[] pixels, int start, int width, int x, Spans circle, int row){
+        int left = 0;
+        while (left < width && pixels[start + left] == 0){
+            left++;
+        }
+        int right = width;
+        while (right > left && pixels[start + right - 1] == 0){
+            right--;
+        }
+        circle.left[row] = left - x;
+        circle.right[row] = right - x;
+    }
+
+    /**
+     * Pixels of the image drawn into with the pixel values of the colors
+     */
+    private static class Target{
+        /** pixels of the image */
+        private final int[] pixels;
+        /** index of the pixel at column 0 and row 0 */
+        private final int origin;
+        /** distance between the first pixels of two rows */
+        private final int stride;
+        /** width of the image */
+        private final int width;
+        /** height of the image */
+        private final int height;
+        /** row of the fractals shown in the first row of the image */
+        private final int top;
+        /** pixel value of the color of every level, indexed by the level */
+        private final int[] levelPixels;
+        /** own spans of the circles of the picture by their index, only read by the bands */
+        private final HashMap<Integer, Spans> ownSpans;
+
+        /**
+         * Creates the target with the given pixels and colors
+         * @param pixels        pixels of the image
+         * @param origin        index of the pixel at column 0 and row 0
+         * @param stride        distance between the first pixels of two rows
+         * @param width         width of the image
+         * @param height        height of the image
+         * @param top           row of the fractals shown in the first row of the image
+         * @param levelPixels   pixel value of the color of every level, indexed by the level
+         * @param ownSpans      own spans of the circles of the picture by their index
+         */
+        Target(int[] pixels, int origin, int stride, int width, int height, int top, int[] levelPixels,
+               HashMap<Integer, Spans> ownSpans){
+            this.pixels = pixels;
+            this.origin = origin;
+            this.stride = stride;
+            this.width = width;
+            this.height = height;
+            this.top = top;
+            this.levelPixels = levelPixels;
+            this.ownSpans = ownSpans;
+        }
+    }
+
+    /**
+     * Bitmap of the covered pixels of an area, one bit per pixel, row after row
+     */
+    private static class Coverage{
+        /** x coordinate of the first column */
+        private final int left;
+        /** y coordinate of the first row */
+        private final int top;
+        /** longs per row */
+        private final int words;
+        /** number of rows */
+        private final int rows;
+        /** the bits, set for the covered pixels, row after row from the start */
+        private final long[] bits;
+
+        /**
+         * Creates the bitmap over the given bits
+         * @param left  x coordinate of the first column
+         * @param top   y coordinate of the first row
+         * @param words longs per row
+         * @param rows  number of rows
+         * @param bits  at least words * rows longs, the covered pixels set
+         */
+        Coverage(int left, int top, int words, int rows, long[] bits){
+            this.left = left;
+            this.top = top;
+            this.words = words;
+            this.rows = rows;
+            this.bits = bits;
+        }
+
+        /**
+         * Checks if every pixel of a circle is covered
+         * @param circle    spans of the circle
+         * @param x         x coordinate of the left edge of the circle's bounding box
+         * @param y         y coordinate of the top edge of the bounding box
+         * @return true if all its pixels are covered, false if one is not or lies outside the bitmap
+         */
+        boolean contains(Spans circle, int x, int y){
+            for (int row = 0; row < circle.left.length; row++){
+                if (circle.left[row] < circle.right[row] &&
+                    !isCovered(y + row, x + circle.left[row], x + circle.right[row])){
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        /**
+         * Marks every pixel of a circle as covered, leaving out what lies outside the bitmap
+         * @param circle    spans of the circle
+         * @param x         x coordinate of the left edge of the circle's bounding box
+         * @param y         y coordinate of the top edge of the bounding box
+         */
+        void add(Spans circle, int x, int y){
+            for (int row = 0; row < circle.left.length; row++){
+                int bitmapRow = y + row - top;
+                int from = Math.max(0, x + circle.left[row] - left);
+                int to = Math.min(words * 64, x + circle.right[row] - left);
+                if (bitmapRow < 0 || bitmapRow >= rows || from >= to){
+                    continue;
+                }
+                int start = bitmapRow * words;
+                int firstWord = from >>> 6;
+                int lastWord = (to - 1) >>> 6;
+                long firstMask = -1L << from;
+                long lastMask = -1L >>> -to;
+                if (firstWord == lastWord){
+                    bits[start + firstWord] |= firstMask & lastMask;
+                } else {
+                    bits[start + firstWord] |= firstMask;
+                    Arrays.fill(bits, start + firstWord + 1, start + lastWord, -1L);
+                    bits[start + lastWord] |= lastMask;
+                }
+            }
+        }
+
+        /**
+         * Checks if the pixels of a row from one column to another are all covered
+         * @param y     y coordinate of the row
+         * @param from  x coordinate of the first pixel
+         * @param to    x coordinate after the last pixel
+         * @return true if all are covered, false if one is not or lies outside the bitmap
+         */
+        private boolean isCovered(int y, int from, int to){
+            int bitmapRow = y - top;
+            from -= left;
+            to -= left;
+            if (bitmapRow < 0 || bitmapRow >= rows || from < 0 || to > words * 64){
+                return false;
+            }
+            int start = bitmapRow * words;
+            int firstWord = from >>> 6;
+            int lastWord = (to - 1) >>> 6;
+            long firstMask = -1L << from;
+            long lastMask = -1L >>> -to;
+            if (firstWord == lastWord){
+                long mask = firstMask & lastMask;
+                return (bits[start + firstWord] & mask) == mask;
+            }
+            if ((bits[start + firstWord] & firstMask) != firstMask || (bits[start + lastWord] & lastMask) != lastMask){
+                return false;
+            }
+            for (int word = firstWord + 1; word < lastWord; word++){
+                if (bits[start + word] != -1L){
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    /**
+     * First and last pixel of every row of a circle, relative to the top left corner of its bounding box
+     */
+    private static class Spans{
+        /** row of the circle the first row of the spans is for */
+        private final int first;
+        /** column of the first pixel of every row */
+        private final int[] left;
+        /** column after the last pixel of every row, equal to left for an empty row */
+        private final int[] right;
+
+        /**
+         * Creates empty spans for all the rows of a circle
+         * @param rows  number of rows of the circle
+         */
+        Spans(int rows){
+            this(0, rows);
+        }
+
+        /**
+         * Creates empty spans for some rows of a circle
+         * @param first row of the circle the first row of the spans is for
+         * @param rows  number of rows
+         */
+        Spans(int first, int rows){
+            this.first = first;
+            left = new int[rows];
+            right = new int[rows];
+        }
+    }
+
+    /**
+     * Own spans of the circles of a picture drawn from a snapshot
+     */
+    private static class PictureSpans{
+        /** snapshot of the fractals */
+        private final FractalSnapshot frame;
+        /** width of the picture */
+        private final int width;
+        /** height of the picture */
+        private final int height;
+        /** own spans of the circles by their index */
+        private final HashMap<Integer, Spans> spans;
+
+        /**
+         * Creates the own spans of a picture
+         * @param frame     snapshot of the fractals
+         * @param width     width of the picture
+         * @param height    height of the picture
+         * @param spans     own spans of the circles by their index
+         */
+        PictureSpans(FractalSnapshot frame, int width, int height, HashMap<Integer, Spans> spans){
+            this.frame = frame;
+            this.width = width;
+            this.height = height;
+            this.spans = spans;
+        }
+    }
+
+    /**
+     * Draws a band of rows, splitting it in halves drawn in parallel while it is big enough. Every band draws all
+     * the circles that cross it, so the bands never write the same pixels
+     */
+    private static class BandTask extends RecursiveAction{
+        /** version of the serialized form */
+        private static final long serialVersionUID = 1L;
+        /** rasterizer drawing the circles */
+        private final CircleRasterizer rasterizer;
+        /** snapshot of the fractals */
+        private final FractalSnapshot frame;
+        /** pixels and colors to draw with */
+        private final Target target;
+        /** first row of the band */
+        private final int firstRow;
+        /** row after the last row of the band */
+        private final int endRow;
+
+        /**
+         * Creates a task drawing the given rows
+         * @param rasterizer    rasterizer drawing the circles
+         * @param frame         snapshot of the fractals
+         * @param target        pixels and colors to draw with
+         * @param firstRow      first row of the band
+         * @param endRow        row after the last row of the band
+         */
+        BandTask(CircleRasterizer rasterizer, FractalSnapshot frame, Target target, int firstRow, int endRow){
+            this.rasterizer = rasterizer;
+            this.frame = frame;
+            this.target = target;
+            this.firstRow = firstRow;
+            this.endRow = endRow;
+        }
+
+        /**
+         * Splits the band in halves while both halves have at least the fewest rows, otherwise draws it
+         */
+        @Override
+        protected void compute(){
+            if (endRow - firstRow < 2 * MIN_BAND_ROWS){
+                drawBand();
+                return;
+            }
+            int middle = (firstRow + endRow) >>> 1;
+            invokeAll(new BandTask(rasterizer, frame, target, firstRow, middle),
+                      new BandTask(rasterizer, frame, target, middle, endRow));
+        }
+
+        /**
+         * Draws the circles crossing the band in drawing order, found through the snapshot's spatial index
+         */
+        void drawBand(){
+            IntArrayList crossing = new IntArrayList();
+            frame.getSpatialIndex().query(new Rectangle(0, target.top + firstRow, target.width,
+                                                        endRow - firstRow), crossing);
+            for (int i = 0; i < crossing.size(); i++){
+                int index = crossing.get(i);
+                if (frame.isHidden(index)){
+                    continue;
+                }
+                int radius = frame.getRadius(index);
+                rasterizer.drawCircle(target, index, frame.getCenterX(index) - radius,
+                                      frame.getCenterY(index) - radius - target.top, radius * 2,
+                                      target.levelPixels[frame.getLevel(index)], firstRow, endRow);
+            }
+        }
+    }
+}
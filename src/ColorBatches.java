@@ -0,0 +1,239 @@
+import java.util.Arrays;
+
+/**
+ * Order in which the fractals of a snapshot are drawn so that the fractals of one palette entry come in runs and
+ * the color only changes between runs. Every fractal gets a batch number bigger than the batches of the fractals of
+ * other entries drawn before it under any of its pixels, and at least the batch of the last fractal of its own entry
+ * there. Drawing batch after batch, the entries of one batch one after another, then gives exactly the same picture
+ * as drawing in the original order: fractals of different entries are only reordered where they do not overlap.
+ * Overlaps are found on a map of cells a few pixels big holding the batch and entry of the last fractal drawn on
+ * them, so some fractals that do not quite overlap are kept in order too. Hidden fractals are left out unless the
+ * order is for drawing at another scale, where they may not be covered
+ *
+ * @author Iulia Bejsovec
+ * @version 10/2026
+ */
+public class ColorBatches{
+    /** most cells of the overlap map, the cells grow until the map fits */
+    private static final int MAX_CELLS = 1 << 20;
+    /** smallest cell size as a power of two, 4 pixels */
+    private static final int MIN_CELL_SHIFT = 2;
+    /** entry of every level of the tree, indexed by the level */
+    private final int[] levelEntries;
+    /** indexes of the fractals in drawing order */
+    private final int[] order;
+    /** index into order of the first fractal of every run, followed by the length of order */
+    private final int[] runStarts;
+    /** palette entry of every run */
+    private final int[] runEntries;
+    /** whether the hidden fractals are left out */
+    private final boolean skipHidden;
+
+    /**
+     * Finds the drawing order of the fractals of the snapshot
+     * @param frame         the fractals
+     * @param levelEntries  palette entry of every level, indexed by the level
+     * @param skipHidden    true to leave out the hidden fractals, false to order all of them
+     * @throws IllegalArgumentException if frame or levelEntries is null
+     */
+    public ColorBatches(FractalSnapshot frame, int[] levelEntries, boolean skipHidden){
+        if (frame == null || levelEntries == null){
+            throw new IllegalArgumentException("Fractals and entries cannot be null");
+        }
+        this.levelEntries = levelEntries.clone();
+        this.skipHidden = skipHidden;
+        int entries = 0;
+        for (int entry : levelEntries){
+            entries = Math.max(entries, entry + 1);
+        }
+        int visible = skipHidden ? frame.size() - frame.getHiddenCount() : frame.size();
+        int[] batches = new int[frame.size()];
+        int lastBatch = findBatches(frame, batches);
+        // counting sort by batch and then entry, keeping the original order inside a run
+        int[] counts = new int[(lastBatch + 1) * entries + 1];
+        for (int i = next(frame, 0); i < frame.size(); i = next(frame, i + 1)){
+            counts[batches[i] * entries + levelEntries[frame.getLevel(i)] + 1]++;
+        }
+        int runs = 0;
+        for (int key = 1; key < counts.length; key++){
+            if (counts[key] > 0){
+                runs++;
+            }
+            counts[key] += counts[key - 1];
+        }
+        order = new int[visible];
+        runStarts = new int[runs + 1];
+        runEntries = new int[runs];
+        int run = 0;
+        for (int key = 0; key < counts.length - 1; key++){
+            if (counts[key + 1] > counts[key]){
+                runStarts[run] = counts[key];
+                runEntries[run] = key % entries;
+                run++;
+            }
+        }
+        runStarts[runs] = visible;
+        for (int i = next(frame, 0); i < frame.size(); i = next(frame, i + 1)){
+            order[counts[batches[i] * entries + levelEntries[frame.getLevel(i)]]++] = i;
+        }
+    }
+
+    /**
+     * Gives every visible fractal its batch, going through them in drawing order over the map of cells
+     * @param frame     the fractals
+     * @param batches   receives the batch of every visible fractal, indexed like the fractals
+     * @return the biggest batch given
+     */
+    private int findBatches(FractalSnapshot frame, int[] batches){
+        int first = next(frame, 0);
+        if (first == frame.size()){
+            return 0;
+        }
+        long left = Long.MAX_VALUE;
+        long top = Long.MAX_VALUE;
+        long right = Long.MIN_VALUE;
+        long bottom = Long.MIN_VALUE;
+        for (int i = first; i < frame.size(); i = next(frame, i + 1)){
+            int radius = frame.getRadius(i);
+            left = Math.min(left, frame.getCenterX(i) - radius);
+            top = Math.min(top, frame.getCenterY(i) - radius);
+            right = Math.max(right, frame.getCenterX(i) + radius);
+            bottom = Math.max(bottom, frame.getCenterY(i) + radius);
+        }
+        int shift = MIN_CELL_SHIFT;
+        while ((((right - left) >> shift) + 1) * (((bottom - top) >> shift) + 1) > MAX_CELLS){
+            shift++;
+        }
+        int columns = (int)((right - left) >> shift) + 1;
+        int rows = (int)((bottom - top) >> shift) + 1;
+        int[] cellBatches = new int[columns * rows];
+        int[] cellEntries = new int[columns * rows];
+        Arrays.fill(cellBatches, -1);
+        int[] fromColumn = new int[rows];
+        int[] toColumn = new int[rows];
+        int lastBatch = 0;
+        for (int i = first; i < frame.size(); i = next(frame, i + 1)){
+            int entry = levelEntries[frame.getLevel(i)];
+            int radius = frame.getRadius(i);
+            int firstRow = (int)((frame.getCenterY(i) - radius - top) >> shift);
+            int lastRow = (int)((frame.getCenterY(i) + radius - top) >> shift);
+            int batch = 0;
+            for (int row = firstRow; row <= lastRow; row++){
+                findColumns(frame, i, row, shift, left, top, fromColumn, toColumn);
+                for (int cell = row * columns + fromColumn[row]; cell <= row * columns + toColumn[row]; cell++){
+                    if (cellBatches[cell] >= 0){
+                        batch = Math.max(batch, cellBatches[cell] + (cellEntries[cell] == entry ? 0 : 1));
+                    }
+                }
+            }
+            for (int row = firstRow; row <= lastRow; row++){
+                for (int cell = row * columns + fromColumn[row]; cell <= row * columns + toColumn[row]; cell++){
+                    cellBatches[cell] = batch;
+                    cellEntries[cell] = entry;
+                }
+            }
+            batches[i] = batch;
+            lastBatch = Math.max(lastBatch, batch);
+        }
+        return lastBatch;
+    }
+
+    /**
+     * Finds the first fractal at or after the given index that is ordered
+     * @param frame the fractals
+     * @param index the index to start at
+     * @return the index of the next fractal ordered, the size of the snapshot if there is none
+     */
+    private int next(FractalSnapshot frame, int index){
+        return skipHidden ? frame.nextVisible(index) : Math.min(index, frame.size());
+    }
+
+    /**
+     * Finds the cells of a row of the map a fractal may draw on, with a pixel to spare around the circle
+     * @param frame         the fractals
+     * @param index         index of the fractal
+     * @param row           row of cells
+     * @param shift         cell size as a power of two
+     * @param left          x coordinate of the first column of cells
+     * @param top           y coordinate of the first row of cells
+     * @param fromColumn    receives the first column of the row
+     * @param toColumn      receives the last column of the row
+     */
+    private static void findColumns(FractalSnapshot frame, int index, int row, int shift, long left, long top,
+                                    int[] fromColumn, int[] toColumn){
+        int radius = frame.getRadius(index);
+        long centerX = frame.getCenterX(index);
+        long centerY = frame.getCenterY(index);
+        long rowTop = top + ((long)row << shift);
+        long rowBottom = rowTop + (1L << shift) - 1;
+        // distance from the center to the closest pixel row of the cells, less one pixel to spare
+        long distance = Math.max(0, Math.max(rowTop - centerY, centerY - rowBottom) - 1);
+        long halfWidth = (long)Math.ceil(Math.sqrt(Math.max(0, (double)radius * radius -
+                                                                (double)distance * distance))) + 1;
+        long from = Math.max(centerX - radius, centerX - halfWidth);
+        long to = Math.min(centerX + radius, centerX + halfWidth);
+        fromColumn[row] = (int)((from - left) >> shift);
+        toColumn[row] = (int)((to - left) >> shift);
+    }
+
+    /**
+     * Checks if the order was found for the given entries of the levels
+     * @param levelEntries  palette entry of every level, indexed by the level
+     * @return true if the same entries were used, false otherwise
+     */
+    public boolean hasEntries(int[] levelEntries){
+        return Arrays.equals(this.levelEntries, levelEntries);
+    }
+
+    /**
+     * Returns the number of runs of one entry
+     * @return the number of runs
+     */
+    public int getRuns(){
+        return runEntries.length;
+    }
+
+    /**
+     * Retrieves the palette entry of a run
+     * @param run   the index of the run
+     * @return the entry all fractals of the run have
+     */
+    public int getEntry(int run){
+        return runEntries[run];
+    }
+
+    /**
+     * Retrieves the position in the drawing order of the first fractal of a run
+     * @param run   the index of the run
+     * @return the position of its first fractal
+     */
+    public int getRunStart(int run){
+        return runStarts[run];
+    }
+
+    /**
+     * Retrieves the position in the drawing order after the last fractal of a run
+     * @param run   the index of the run
+     * @return the position after its last fractal
+     */
+    public int getRunEnd(int run){
+        return runStarts[run + 1];
+    }
+
+    /**
+     * Retrieves the fractal drawn at a position of the drawing order
+     * @param position  the position, 0 to size() - 1
+     * @return the index of the fractal
+     */
+    public int get(int position){
+        return order[position];
+    }
+
+    /**
+     * Returns the number of fractals drawn
+     * @return the number of visible fractals
+     */
+    public int size(){
+        return order.length;
+    }
+}
@@ -1,10 +1,25 @@
+import javax.swing.AbstractAction;
+import javax.swing.JComponent;
 import javax.swing.JFrame;
 import javax.swing.JPanel;
+import javax.swing.KeyStroke;
+import javax.swing.SwingUtilities;
 import java.awt.Dimension;
 import java.awt.Color;
+import java.awt.FontMetrics;
 import java.awt.Graphics;
+import java.awt.Graphics2D;
 import java.awt.Point;
 import java.awt.Toolkit;
+import java.awt.event.ActionEvent;
+import java.awt.event.KeyEvent;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.awt.event.MouseWheelEvent;
+import java.awt.image.BufferedImage;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 /**
  * The view part of the MVC. Representsthe window to draw the fractals on. Implements the Observer interface with a
@@ -16,6 +31,26 @@ import java.awt.Toolkit;
 public class Display extends JFrame implements Observer{
     /** all fractals to be drawn (subject) */
     private GenerateFractal allFractals;
+    /** panel the fractals are drawn on */
+    private GPanel panel;
+    /** renders previews of settings that are not applied yet */
+    private PreviewRenderer previewRenderer;
+    /** plays the animation sweeping the child ratio and degree */
+    private AnimationPlayer animationPlayer;
+    /** zoom and pan of the panel */
+    private Viewport viewport;
+    /** factor the view is zoomed by for one notch of the mouse wheel */
+    private static final double ZOOM_STEP = 1.25;
+    /** whether the times of the last generation and painting are shown over the fractals */
+    private volatile boolean statsOverlay;
+    /** number of frames of one sweep of the animation started with F5, 4 seconds at 30 frames per second */
+    private static final int SWEEP_FRAMES = 120;
+    /** field of cacti shown instead of the fractals, null to show the fractals */
+    private CactusScene scene;
+    /** draws the scene */
+    private SceneRenderer sceneRenderer;
+    /** single background thread generating and rendering the applied settings */
+    private ExecutorService renderExecutor;
     
     /**
      * Creates the display to be drawn on
@@ -32,26 +67,241 @@ public class Display extends JFrame implements Observer{
         setPreferredSize(new Dimension((int)(screenSize.getWidth() * 0.75), 
                                        (int)(screenSize.getHeight() * 0.65)));
         setTitle("Display");
-        JPanel panel = new GPanel();
+        viewport = new Viewport();
+        sceneRenderer = new SceneRenderer();
+        renderExecutor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "fractal-render");
+            thread.setDaemon(true);
+            return thread;
+        });
+        panel = new GPanel();
+        previewRenderer = new PreviewRenderer(image -> {
+            panel.preview = image;
+            panel.repaint();
+            setVisible(true);
+        });
+        animationPlayer = new AnimationPlayer(image -> {
+            panel.preview = image;
+            panel.repaint();
+        }, allFractals.getMetrics());
         getContentPane().add(panel);
         panel.setLayout(null);
         pack();
         setLocationRelativeTo(null);
-        setResizable(false);
     }
     
     /**
-     * Gets up to date data for the fractals and set the frame visible
+     * Repaints the fractals and sets the frame visible, up to date data for the fractals is retrieved when the panel
+     * finds its rendered image out of date
      */
     public void update(){
-        allFractals.getData((int)getContentPane().getSize().getWidth(), (int)getContentPane().getSize().getHeight());
+        previewRenderer.cancel();
+        animationPlayer.stop();
+        panel.preview = null;
+        panel.repaint();
         this.setVisible(true);
     }
+
+    /**
+     * Shows a preview of the given settings without applying them, rendered in the background. Replaced by the
+     * fractals as soon as the settings are applied
+     * @param recursionDepth    depth of recursion of fractals
+     * @param radiusRatio       radius ratio of the child to the parent
+     * @param degree            degree of the position of the child to the parent
+     * @param palette           colors of the pears and of the levels of the cactus
+     */
+    public void preview(int recursionDepth, int radiusRatio, int degree, LevelPalette palette){
+        animationPlayer.stop();
+        previewRenderer.request(recursionDepth, radiusRatio, degree, palette,
+                                panel.getWidth(), panel.getHeight(), panel.getBackground());
+    }
+    
+    /**
+     * Starts an animation of the current recursion depth and palette on the whole panel, the child ratio and degree
+     * sweeping between the given values and back. Shown until the settings are applied, previewed or the animation
+     * is stopped. F5 starts and stops an animation over the whole range of the sliders
+     * @param fromRatio     radius ratio of the child to the parent at the start of the sweep (40 to 70)
+     * @param toRatio       radius ratio at the end of the sweep (40 to 70)
+     * @param fromDegree    degree of the position of the child to the parent at the start of the sweep
+     * @param toDegree      degree at the end of the sweep
+     * @param sweepFrames   number of frames of one sweep
+     * @throws IllegalArgumentException if a ratio is not between 40 and 70 or sweepFrames is not positive
+     */
+    public void startAnimation(double fromRatio, double toRatio, int fromDegree, int toDegree, int sweepFrames){
+        previewRenderer.cancel();
+        if (panel.getWidth() > 0 && panel.getHeight() > 0){
+            animationPlayer.start(allFractals.getRecursionDepth(), allFractals.getPalette(), fromRatio, toRatio,
+                                  fromDegree, toDegree, sweepFrames, panel.getWidth(), panel.getHeight(),
+                                  panel.getBackground());
+        }
+    }
+
+    /**
+     * Stops the animation and shows the fractals of the current settings again
+     */
+    public void stopAnimation(){
+        update();
+    }
+
+    /**
+     * Retrieves the player of the animation, to read its dropped frames and frame times or change its speed
+     * @return the animation player
+     */
+    public AnimationPlayer getAnimationPlayer(){
+        return animationPlayer;
+    }
+
+    /**
+     * Shows a field of cacti instead of the fractals, zoomed and panned like them. Call update after changing the
+     * scene to show the change
+     * @param scene the scene to show, null to show the fractals again
+     */
+    public void setScene(CactusScene scene){
+        this.scene = scene;
+        update();
+    }
+
+    /**
+     * Retrieves the field of cacti shown instead of the fractals
+     * @return the scene, null if the fractals are shown
+     */
+    public CactusScene getScene(){
+        return scene;
+    }
+
+    /**
+     * Retrieves the renderer of the scene, to read how the instances of the last drawing were drawn
+     * @return the scene renderer
+     */
+    public SceneRenderer getSceneRenderer(){
+        return sceneRenderer;
+    }
+
+    /**
+     * Retrieves the zoom and pan of the panel
+     * @return the viewport of the panel
+     */
+    public Viewport getViewport(){
+        return viewport;
+    }
+
+    /**
+     * Shows or hides the times of the last generation and painting, the number of circles painted and the dropped
+     * frames over the fractals. F3 switches it too
+     * @param statsOverlay  true to show the numbers, false to hide them
+     */
+    public void setStatsOverlay(boolean statsOverlay){
+        this.statsOverlay = statsOverlay;
+        panel.repaint();
+    }
+
+    /**
+     * Checks if the numbers of the last generation and painting are shown over the fractals
+     * @return true if they are shown, false otherwise
+     */
+    public boolean isStatsOverlay(){
+        return statsOverlay;
+    }
     
     /**
-     * Custom JPanel responsible for drawing the fractals
+     * Custom JPanel responsible for drawing the fractals. The fractals are rendered once into an off-screen image,
+     * which is only rendered again when the parameters, the size of the panel or the viewport change, so repaints
+     * are a single image copy. The whole cactus is generated and rendered on a background thread, the image before
+     * it staying on the panel until the new one is finished. The mouse wheel zooms around the cursor, dragging pans
+     * and a double click shows the whole cactus again. F3 shows or hides the numbers of the last generation and
+     * painting, F5 starts or stops the animation
      */
     private class GPanel extends JPanel{
+        /** margin around the text of the overlay */
+        private static final int OVERLAY_MARGIN = 6;
+        /** off-screen image with the rendered fractals */
+        private BufferedImage backBuffer;
+        /** version of the parameters the off-screen image was rendered with */
+        private long backBufferVersion;
+        /** preview shown instead of the fractals, null when there is none */
+        private BufferedImage preview;
+        /** version of the viewport the off-screen image was rendered with */
+        private long backBufferViewVersion;
+        /** scene the off-screen image was rendered with, null for the fractals */
+        private CactusScene backBufferScene;
+        /** version of the scene the off-screen image was rendered with */
+        private long backBufferSceneVersion;
+        /** last point of the drag in progress */
+        private Point dragPoint;
+        /** background rendering of the whole cactus in progress, null when there is none */
+        private Future<?> pendingRender;
+        /** number of the latest background rendering */
+        private long latestRender;
+        /** version of the parameters the background rendering in progress renders */
+        private long pendingVersion;
+        /** version of the viewport the background rendering in progress renders */
+        private long pendingViewVersion;
+        /** width of the background rendering in progress */
+        private int pendingWidth;
+        /** height of the background rendering in progress */
+        private int pendingHeight;
+
+        /**
+         * Creates the panel, zooming and panning the viewport with the mouse
+         */
+        GPanel(){
+            MouseAdapter mouse = new MouseAdapter(){
+                @Override
+                public void mousePressed(MouseEvent e){
+                    dragPoint = e.getPoint();
+                }
+
+                @Override
+                public void mouseDragged(MouseEvent e){
+                    if (dragPoint != null){
+                        viewport.pan(e.getX() - dragPoint.x, e.getY() - dragPoint.y);
+                        dragPoint = e.getPoint();
+                        repaint();
+                    }
+                }
+
+                @Override
+                public void mouseReleased(MouseEvent e){
+                    dragPoint = null;
+                }
+
+                @Override
+                public void mouseClicked(MouseEvent e){
+                    if (e.getClickCount() == 2){
+                        viewport.reset();
+                        repaint();
+                    }
+                }
+
+                @Override
+                public void mouseWheelMoved(MouseWheelEvent e){
+                    viewport.zoom(e.getX(), e.getY(), Math.pow(ZOOM_STEP, -e.getPreciseWheelRotation()));
+                    repaint();
+                }
+            };
+            addMouseListener(mouse);
+            addMouseMotionListener(mouse);
+            addMouseWheelListener(mouse);
+            getInputMap(JComponent.WHEN_IN_FOCUSED_WINDOW).put(KeyStroke.getKeyStroke(KeyEvent.VK_F3, 0), "stats");
+            getActionMap().put("stats", new AbstractAction(){
+                @Override
+                public void actionPerformed(ActionEvent e){
+                    setStatsOverlay(!statsOverlay);
+                }
+            });
+            getInputMap(JComponent.WHEN_IN_FOCUSED_WINDOW).put(KeyStroke.getKeyStroke(KeyEvent.VK_F5, 0),
+                                                                "animation");
+            getActionMap().put("animation", new AbstractAction(){
+                @Override
+                public void actionPerformed(ActionEvent e){
+                    if (animationPlayer.isPlaying()){
+                        stopAnimation();
+                    } else {
+                        startAnimation(40, 70, 25, 60, SWEEP_FRAMES);
+                    }
+                }
+            });
+        }
         
         /**
          * Paints the fractals on the given graphics object
@@ -59,8 +309,156 @@ public class Display extends JFrame implements Observer{
          */
         @Override
         public void paintComponent(Graphics g){
-            super.paintComponent(g);
-            allFractals.draw(g);
+            if (getWidth() <= 0 || getHeight() <= 0){
+                return;
+            }
+            if (preview != null && preview.getWidth() == getWidth() && preview.getHeight() == getHeight() &&
+                viewport.isIdentity()){
+                g.drawImage(preview, 0, 0, null);
+            } else {
+                updateBackBuffer();
+                if (backBuffer == null || backBuffer.getWidth() != getWidth() ||
+                    backBuffer.getHeight() != getHeight()){
+                    // the image of the new size is still being rendered in the background
+                    g.setColor(getBackground());
+                    g.fillRect(0, 0, getWidth(), getHeight());
+                }
+                if (backBuffer != null){
+                    g.drawImage(backBuffer, 0, 0, null);
+                }
+            }
+            if (statsOverlay){
+                paintStats(g);
+            }
+        }
+
+        /**
+         * Paints the numbers of the last generation and painting in the top left corner, on a dark box so they can
+         * be read over any colors
+         * @param g graphics object to be drawn on
+         */
+        private void paintStats(Graphics g){
+            RenderMetrics metrics = allFractals.getMetrics();
+            String[] lines = {
+                String.format("generation: %.1f ms, %d fractals", metrics.getLastGenerationNanos() / 1e6,
+                              metrics.getLastGenerationFractals()),
+                String.format("paint: %.1f ms, %d circles", metrics.getLastPaintNanos() / 1e6,
+                              metrics.getLastPaintCircles()),
+                "dropped frames: " + metrics.getDroppedFrames(),
+                animationPlayer.isPlaying() ? animationPlayer.toString() : "animation: F5",
+                scene != null ? sceneRenderer.toString() : "scene: none"
+            };
+            FontMetrics font = g.getFontMetrics();
+            int width = 0;
+            for (String line : lines){
+                width = Math.max(width, font.stringWidth(line));
+            }
+            g.setColor(new Color(0, 0, 0, 160));
+            g.fillRect(0, 0, width + 2 * OVERLAY_MARGIN, lines.length * font.getHeight() + 2 * OVERLAY_MARGIN);
+            g.setColor(Color.WHITE);
+            for (int i = 0; i < lines.length; i++){
+                g.drawString(lines[i], OVERLAY_MARGIN, OVERLAY_MARGIN + i * font.getHeight() + font.getAscent());
+            }
+        }
+
+        /**
+         * Renders the fractals into the off-screen image again if the image is missing, the size of the panel, the
+         * parameters, the viewport or the scene changed since it was rendered. Zoomed or moved views only generate
+         * what they show. The whole cactus is rendered in the background instead, see renderInBackground
+         */
+        private void updateBackBuffer(){
+            int width = getWidth();
+            int height = getHeight();
+            long version = allFractals.getParameterVersion();
+            long viewVersion = viewport.getVersion();
+            long sceneVersion = scene != null ? scene.getVersion() : 0;
+            if (backBuffer != null && backBuffer.getWidth() == width && backBuffer.getHeight() == height &&
+                backBufferVersion == version && backBufferViewVersion == viewVersion && backBufferScene == scene &&
+                backBufferSceneVersion == sceneVersion){
+                return;
+            }
+            if (scene == null && viewport.isIdentity()){
+                renderInBackground(width, height, version, viewVersion);
+                return;
+            }
+            cancelRender();
+            if (backBuffer == null || backBuffer.getWidth() != width || backBuffer.getHeight() != height){
+                backBuffer = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+            }
+            Graphics2D bufferGraphics = backBuffer.createGraphics();
+            bufferGraphics.setColor(getBackground());
+            bufferGraphics.fillRect(0, 0, width, height);
+            if (scene != null){
+                sceneRenderer.draw(bufferGraphics, scene, viewport, width, height);
+                bufferGraphics.dispose();
+            } else {
+                allFractals.drawView(bufferGraphics, viewport, width, height);
+                bufferGraphics.dispose();
+            }
+            backBufferVersion = version;
+            backBufferViewVersion = viewVersion;
+            backBufferScene = scene;
+            backBufferSceneVersion = sceneVersion;
+        }
+
+        /**
+         * Starts generating and rendering the whole cactus on the background thread, unless the same rendering is
+         * already in progress, cancelling the one before it. The finished image becomes the off-screen image on the
+         * event dispatch thread if no other rendering was started meanwhile
+         * @param width         width of the panel
+         * @param height        height of the panel
+         * @param version       version of the parameters
+         * @param viewVersion   version of the viewport
+         */
+        private void renderInBackground(int width, int height, long version, long viewVersion){
+            if (pendingRender != null && pendingVersion == version && pendingViewVersion == viewVersion &&
+                pendingWidth == width && pendingHeight == height){
+                return;
+            }
+            cancelRender();
+            long render = latestRender;
+            Color background = getBackground();
+            pendingVersion = version;
+            pendingViewVersion = viewVersion;
+            pendingWidth = width;
+            pendingHeight = height;
+            pendingRender = renderExecutor.submit(() -> {
+                allFractals.getData(width, height);
+                if (Thread.currentThread().isInterrupted()){
+                    return;
+                }
+                BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+                Graphics2D g = image.createGraphics();
+                g.setColor(background);
+                g.fillRect(0, 0, width, height);
+                g.dispose();
+                allFractals.drawRaster(image);
+                if (Thread.currentThread().isInterrupted()){
+                    return;
+                }
+                SwingUtilities.invokeLater(() -> {
+                    if (render == latestRender){
+                        pendingRender = null;
+                        backBuffer = image;
+                        backBufferVersion = version;
+                        backBufferViewVersion = viewVersion;
+                        backBufferScene = null;
+                        backBufferSceneVersion = 0;
+                        repaint();
+                    }
+                });
+            });
+        }
+
+        /**
+         * Cancels the background rendering in progress, interrupting it, so its image is never shown
+         */
+        private void cancelRender(){
+            latestRender++;
+            if (pendingRender != null){
+                pendingRender.cancel(true);
+                pendingRender = null;
+            }
         }
     }
 }
@@ -0,0 +1,240 @@
+import java.util.Arrays;
+import java.util.function.DoubleConsumer;
+
+/**
+ * Class can be used to store a list of double values without boxing them. Companion of ArrayList with bulk copies for
+ * insertion, removal and adding whole lists.
+ *
+ * @author Iulia Bejsovec
+ * @version 10/2026
+ */
+public class DoubleArrayList {
+    /** list of all values*/
+    private double[] elementData;
+    /** current number of elements in the list*/
+    private int size;
+    /** default capacity of the initial list*/
+    private static final int DEFAULT_CAPACITY = 50;
+
+    /**
+     * Constructs an empty list of default capacity
+     */
+    public DoubleArrayList() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Creates an empty list of a given capacity(must be bigger or equal 0)
+     * @param capacity size of the list
+     * @throws IllegalArgumentException if capacity is smaller than 0
+     */
+    public DoubleArrayList(int capacity) {
+        if (capacity < 0) {
+            throw new IllegalArgumentException("capacity: " + capacity);
+        }
+        elementData = new double[capacity];
+        size = 0;
+    }
+
+    /**
+     * Returns the current number of elements in the list
+     * @return the current number of elements in the list
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Gets the element at the given index
+     * @param index the index of the element to return
+     * @return the element at the given index
+     */
+    public double get(int index) {
+        checkIndex(index);
+        return elementData[index];
+    }
+
+    /**
+     * Checks the list and gets the index of the given value
+     * @param value the value we are checking the list for
+     * @return -1 if the list doesn't contain the value or the index
+     * at which the value is
+     */
+    public int indexOf(double value) {
+        for (int i = 0; i < size; i++) {
+            if (Double.compare(elementData[i], value) == 0) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Checks if the list is empty
+     * @return true if the list is empty, false if not
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Checks if the list contains a value
+     * @param value item that we are checking the list for
+     * @return true if the list contains the value, false otherwise
+     */
+    public boolean contains(double value) {
+        return indexOf(value) >= 0;
+    }
+
+    /**
+     * Adds a value to the list, updates the size of the list
+     * @param value new element to be added to the list
+     */
+    public void add(double value) {
+        ensureCapacity(size + 1);
+        elementData[size] = value;
+        size++;
+    }
+
+    /**
+     * Adds a value to the list at the given index shifting subsequent values right and update the size
+     * @param index the index where to add the value at, must be bigger or equal 0 and  smaller than size
+     * @param value the value to add to the list
+     */
+    public void add(int index, double value) {
+        checkIndex(index);
+        ensureCapacity(size + 1);
+        System.arraycopy(elementData, index, elementData, index + 1, size - index);
+        elementData[index] = value;
+        size++;
+    }
+
+    /**
+     * Removes an item from the list at the given index shifting elements left and updates the size
+     * @param index the index at which to remove the value, must be be bigger or equal 0 and  smaller than size
+     */
+    public void remove(int index) {
+        checkIndex(index);
+        System.arraycopy(elementData, index + 1, elementData, index, size - index - 1);
+        size--;
+    }
+
+    /**
+     * Replaces a value in the list with the given value at the given index
+     * @param index the index of the element to be set to new value, must be bigger or equal 0 and  smaller than size
+     * @param value the value to update the element to
+     */
+    public void set(int index, double value) {
+        checkIndex(index);
+        elementData[index] = value;
+    }
+
+    /**
+     * Clears the list by resetting the size, the capacity is kept
+     */
+    public void clear() {
+        size = 0;
+    }
+
+    /**
+     * Adds all elements of the given list to this list and updates the size
+     * @param other the new list to be appended to this list
+     */
+    public void addAll(DoubleArrayList other) {
+        addAll(other.elementData, 0, other.size);
+    }
+
+    /**
+     * Adds the given range of values to this list and updates the size
+     * @param values    array holding the values to be appended to this list
+     * @param offset    index of the first value to append
+     * @param length    number of values to append
+     * @throws IndexOutOfBoundsException if the range is not within the array
+     */
+    public void addAll(double[] values, int offset, int length) {
+        if (offset < 0 || length < 0 || offset > values.length - length) {
+            throw new IndexOutOfBoundsException("offset: " + offset + ", length: " + length);
+        }
+        ensureCapacity(size + length);
+        System.arraycopy(values, offset, elementData, size, length);
+        size += length;
+    }
+
+    /**
+     * Performs the given action for every element of the list in order, without boxing or creating an iterator
+     * @param action the action to perform on every element
+     */
+    public void forEach(DoubleConsumer action) {
+        for (int i = 0; i < size; i++) {
+            action.accept(elementData[i]);
+        }
+    }
+
+    /**
+     * Sorts the elements of the list in ascending order
+     */
+    public void sort() {
+        Arrays.sort(elementData, 0, size);
+    }
+
+    /**
+     * Creates an array with the elements of the list
+     * @return a new array with all elements of the list in order
+     */
+    public double[] toArray() {
+        return Arrays.copyOf(elementData, size);
+    }
+
+    /**
+     * Shrinks the underlying array to the current size of the list
+     */
+    public void trimToSize() {
+        if (elementData.length > size) {
+            elementData = Arrays.copyOf(elementData, size);
+        }
+    }
+
+    /**
+     * Ensures that the underlying array has the given capacity; if not, the size is grown by half (or more if given
+     * capacity is even larger)
+     * @param capacity the new capacity that we need the list to be
+     */
+    public void ensureCapacity(int capacity) {
+        if (capacity > elementData.length) {
+            int newCapacity = elementData.length + elementData.length / 2  + 1;
+            if (capacity > newCapacity) {
+                newCapacity = capacity;
+            }
+            elementData = Arrays.copyOf(elementData, newCapacity);
+        }
+    }
+
+    /**
+     * Checks if the given index is within legal limits - be bigger or equal 0 and  smaller than size
+     * @param index the index to check
+     * @throws IndexOutOfBoundsException if the given index is not a legal index for the current list
+     */
+    private void checkIndex(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("index: " + index);
+        }
+    }
+
+    /**
+     * Creates a comma-separated bracketed version of the list
+     * @return a comma-separated bracketed version of the list
+     */
+    @Override
+    public String toString() {
+        if (size == 0) {
+            return "[]";
+        } else {
+            StringBuilder result = new StringBuilder("[" + elementData[0]);
+            for (int i = 1; i < size; i++) {
+                result.append(", ").append(elementData[i]);
+            }
+            result.append("]");
+            return result.toString();
+        }
+    }
+}
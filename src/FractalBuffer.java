@@ -0,0 +1,327 @@
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Stores the generated fractals in parallel primitive arrays (center x, center y, radius and level) instead of one
+ * object per fractal. The capacity is kept between generations, so clearing and refilling the buffer allocates
+ * nothing once it has grown to the needed size.
+ *
+ * @author Iulia Bejsovec
+ * @version 10/2026
+ */
+public class FractalBuffer{
+    /** x coordinates of the center points */
+    private int[] centerX;
+    /** y coordinates of the center points */
+    private int[] centerY;
+    /** radiuses of the fractals */
+    private int[] radius;
+    /** levels of the fractals, 1 being the last level (pear) */
+    private byte[] level;
+    /** current number of fractals in the buffer */
+    private int size;
+    /** bytes taken by one fractal: center x, center y, radius and level */
+    private static final int BYTES_PER_FRACTAL = 3 * Integer.BYTES + 1;
+    /** default capacity of the initial buffer */
+    private static final int DEFAULT_CAPACITY = 50;
+
+    /**
+     * Constructs an empty buffer of default capacity
+     */
+    public FractalBuffer(){
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Creates an empty buffer of a given capacity(must be bigger or equal 0)
+     * @param capacity number of fractals the buffer can hold before growing
+     * @throws IllegalArgumentException if capacity is smaller than 0
+     */
+    public FractalBuffer(int capacity){
+        if (capacity < 0){
+            throw new IllegalArgumentException("capacity: " + capacity);
+        }
+        centerX = new int[capacity];
+        centerY = new int[capacity];
+        radius = new int[capacity];
+        level = new byte[capacity];
+        size = 0;
+    }
+
+    /**
+     * Creates a buffer holding a copy of the fractals of the given buffer, with no spare capacity
+     * @param other the buffer to copy
+     * @throws IllegalArgumentException if other is null
+     */
+    public FractalBuffer(FractalBuffer other){
+        this(other == null ? 0 : other.size);
+        if (other == null){
+            throw new IllegalArgumentException("Buffer cannot be null");
+        }
+        copyFrom(other);
+    }
+
+    /**
+     * Returns the current number of fractals in the buffer
+     * @return the current number of fractals in the buffer
+     */
+    public int size(){
+        return size;
+    }
+
+    /**
+     * Checks if the buffer is empty
+     * @return true if the buffer is empty, false if not
+     */
+    public boolean isEmpty(){
+        return size == 0;
+    }
+
+    /**
+     * Adds a fractal to the end of the buffer, updates the size of the buffer
+     * @param x         x coordinate of the center point
+     * @param y         y coordinate of the center point
+     * @param radius    radius of the fractal
+     * @param level     level of the fractal, 1 being the last level (pear)
+     * @throws IllegalArgumentException if radius is negative or equals to 0
+     * @throws IllegalArgumentException if level is smaller than 1 or does not fit into a byte
+     */
+    public void add(int x, int y, int radius, int level){
+        checkFractal(radius, level);
+        ensureCapacity(size + 1);
+        centerX[size] = x;
+        centerY[size] = y;
+        this.radius[size] = radius;
+        this.level[size] = (byte)level;
+        size++;
+    }
+
+    /**
+     * Replaces the fractal at the given index
+     * @param index     the index of the fractal to replace
+     * @param x         x coordinate of the center point
+     * @param y         y coordinate of the center point
+     * @param radius    radius of the fractal
+     * @param level     level of the fractal, 1 being the last level (pear)
+     * @throws IllegalArgumentException if radius is negative or equals to 0
+     * @throws IllegalArgumentException if level is smaller than 1 or does not fit into a byte
+     */
+    public void set(int index, int x, int y, int radius, int level){
+        checkIndex(index);
+        checkFractal(radius, level);
+        centerX[index] = x;
+        centerY[index] = y;
+        this.radius[index] = radius;
+        this.level[index] = (byte)level;
+    }
+
+    /**
+     * Copies the fractal at one index over the fractal at another index
+     * @param from  the index of the fractal to copy
+     * @param to    the index of the fractal to replace
+     */
+    public void copy(int from, int to){
+        checkIndex(from);
+        checkIndex(to);
+        centerX[to] = centerX[from];
+        centerY[to] = centerY[from];
+        radius[to] = radius[from];
+        level[to] = level[from];
+    }
+
+    /**
+     * Changes the level of the fractal at the given index
+     * @param index the index of the fractal
+     * @param level the new level of the fractal, 1 being the last level (pear)
+     * @throws IllegalArgumentException if level is smaller than 1 or does not fit into a byte
+     */
+    public void setLevel(int index, int level){
+        checkIndex(index);
+        checkFractal(radius[index], level);
+        this.level[index] = (byte)level;
+    }
+
+    /**
+     * Sets the size of the buffer, growing the capacity if needed, so that the fractals can be written with set in
+     * any order. Newly exposed slots keep whatever values they held before
+     * @param newSize the new number of fractals in the buffer
+     * @throws IllegalArgumentException if newSize is smaller than 0
+     */
+    public void setSize(int newSize){
+        if (newSize < 0){
+            throw new IllegalArgumentException("size: " + newSize);
+        }
+        ensureCapacity(newSize);
+        size = newSize;
+    }
+
+    /**
+     * Replaces the fractals of this buffer with a copy of the fractals of the given buffer, reusing the capacity
+     * @param other the buffer to copy
+     * @throws IllegalArgumentException if other is null
+     */
+    public void copyFrom(FractalBuffer other){
+        if (other == null){
+            throw new IllegalArgumentException("Buffer cannot be null");
+        }
+        ensureCapacity(other.size);
+        System.arraycopy(other.centerX, 0, centerX, 0, other.size);
+        System.arraycopy(other.centerY, 0, centerY, 0, other.size);
+        System.arraycopy(other.radius, 0, radius, 0, other.size);
+        System.arraycopy(other.level, 0, level, 0, other.size);
+        size = other.size;
+    }
+
+    /**
+     * Writes the fractals into the given buffer column after column: all the x coordinates, all the y coordinates,
+     * all the radiuses and then all the levels, getStoredSize bytes in total
+     * @param target    the buffer to write to, at its position
+     */
+    public void store(ByteBuffer target){
+        target.asIntBuffer().put(centerX, 0, size).put(centerY, 0, size).put(radius, 0, size);
+        target.position(target.position() + 3 * size * Integer.BYTES);
+        target.put(level, 0, size);
+    }
+
+    /**
+     * Replaces the fractals of this buffer with the given number of fractals read in the layout written by store,
+     * reusing the capacity. Every fractal read is checked, the buffer is left empty if one is not legal
+     * @param source    the buffer to read from, at its position
+     * @param count     number of fractals to read
+     * @throws IllegalArgumentException if count is smaller than 0
+     * @throws IllegalArgumentException if a radius read is not positive or a level read is smaller than 1
+     */
+    public void load(ByteBuffer source, int count){
+        if (count < 0){
+            throw new IllegalArgumentException("size: " + count);
+        }
+        ensureCapacity(count);
+        source.asIntBuffer().get(centerX, 0, count).get(centerY, 0, count).get(radius, 0, count);
+        source.position(source.position() + 3 * count * Integer.BYTES);
+        source.get(level, 0, count);
+        size = 0;
+        for (int i = 0; i < count; i++){
+            checkFractal(radius[i], level[i]);
+        }
+        size = count;
+    }
+
+    /**
+     * Calculates the number of bytes store writes for the given number of fractals
+     * @param count number of fractals
+     * @return the number of bytes
+     */
+    public static long getStoredSize(int count){
+        return (long)count * BYTES_PER_FRACTAL;
+    }
+
+    /**
+     * Estimates the memory taken by the fractals in the buffer
+     * @return the number of bytes of the stored fractals
+     */
+    public long getMemorySize(){
+        return (long)size * BYTES_PER_FRACTAL;
+    }
+
+    /**
+     * Clears the buffer by resetting the size, the capacity is kept for the next generation
+     */
+    public void clear(){
+        size = 0;
+    }
+
+    /**
+     * Retrieves the x coordinate of the center point of the fractal at the given index
+     * @param index the index of the fractal
+     * @return the x coordinate of the center point
+     */
+    public int getCenterX(int index){
+        checkIndex(index);
+        return centerX[index];
+    }
+
+    /**
+     * Retrieves the y coordinate of the center point of the fractal at the given index
+     * @param index the index of the fractal
+     * @return the y coordinate of the center point
+     */
+    public int getCenterY(int index){
+        checkIndex(index);
+        return centerY[index];
+    }
+
+    /**
+     * Retrieves the radius of the fractal at the given index
+     * @param index the index of the fractal
+     * @return the radius of the fractal
+     */
+    public int getRadius(int index){
+        checkIndex(index);
+        return radius[index];
+    }
+
+    /**
+     * Retrieves the diameter of the fractal at the given index
+     * @param index the index of the fractal
+     * @return the diameter of the fractal
+     */
+    public int getDiameter(int index){
+        checkIndex(index);
+        return radius[index] * 2;
+    }
+
+    /**
+     * Retrieves the level of the fractal at the given index
+     * @param index the index of the fractal
+     * @return the level of the fractal, 1 being the last level (pear)
+     */
+    public int getLevel(int index){
+        checkIndex(index);
+        return level[index];
+    }
+
+    /**
+     * Ensures that the underlying arrays have the given capacity; if not, the capacity is grown by half (or more if
+     * given capacity is even larger)
+     * @param capacity the capacity that we need the buffer to be
+     */
+    public void ensureCapacity(int capacity){
+        if (capacity > centerX.length){
+            int newCapacity = centerX.length + centerX.length / 2 + 1;
+            if (capacity > newCapacity){
+                newCapacity = capacity;
+            }
+            centerX = Arrays.copyOf(centerX, newCapacity);
+            centerY = Arrays.copyOf(centerY, newCapacity);
+            radius = Arrays.copyOf(radius, newCapacity);
+            level = Arrays.copyOf(level, newCapacity);
+        }
+    }
+
+    /**
+     * Checks if the given radius and level describe a legal fractal
+     * @param radius    radius of the fractal
+     * @param level     level of the fractal
+     * @throws IllegalArgumentException if radius is negative or equals to 0
+     * @throws IllegalArgumentException if level is smaller than 1 or does not fit into a byte
+     */
+    private void checkFractal(int radius, int level){
+        if (radius <= 0){
+            throw new IllegalArgumentException("Radius must be positive");
+        }
+        if (level < 1 || level > Byte.MAX_VALUE){
+            throw new IllegalArgumentException("level: " + level);
+        }
+    }
+
+    /**
+     * Checks if the given index is within legal limits - be bigger or equal 0 and  smaller than size
+     * @param index the index to check
+     * @throws IndexOutOfBoundsException if the given index is not a legal index for the current buffer
+     */
+    private void checkIndex(int index){
+        if (index < 0 || index >= size){
+            throw new IndexOutOfBoundsException("index: " + index);
+        }
+    }
+}
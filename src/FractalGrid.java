@@ -0,0 +1,199 @@
+import java.awt.Rectangle;
+import java.util.Arrays;
+
+/**
+ * Uniform grid over the generated fractals, used to find the fractals inside an area (for example the clip of a
+ * partial repaint) and the fractal under a point without going through all of them. Every fractal is listed in each
+ * cell its bounding box touches; an area query reports a fractal only from the first of its cells inside the area,
+ * so nothing is reported twice. The arrays are kept between rebuilds
+ *
+ * @author Iulia Bejsovec
+ * @version 10/2026
+ */
+public class FractalGrid{
+    /** smallest side of a cell in pixels */
+    private static final int MIN_CELL_SIZE = 8;
+    /** fractals the grid was built over */
+    private FractalBuffer fractals;
+    /** side of a cell in pixels */
+    private int cellSize;
+    /** x coordinate of the left edge of the grid */
+    private int left;
+    /** y coordinate of the top edge of the grid */
+    private int top;
+    /** number of cell columns */
+    private int columns;
+    /** number of cell rows */
+    private int rows;
+    /** index into items of the first fractal of every cell, followed by the total number of items */
+    private int[] cellStart = new int[0];
+    /** indexes of the fractals of every cell, cell after cell, in drawing order within a cell */
+    private int[] items = new int[0];
+    /** next free position in items of every cell while building */
+    private int[] next = new int[0];
+    /** smallest rectangle containing all the fractals */
+    private Rectangle bounds = new Rectangle();
+
+    /**
+     * Builds the grid over the given fractals, replacing what it was built over before
+     * @param fractals  the fractals to index
+     * @throws IllegalArgumentException if fractals is null
+     */
+    public void build(FractalBuffer fractals){
+        if (fractals == null){
+            throw new IllegalArgumentException("Fractals cannot be null");
+        }
+        this.fractals = fractals;
+        int count = fractals.size();
+        if (count == 0){
+            bounds = new Rectangle();
+            columns = 0;
+            rows = 0;
+            return;
+        }
+        int minX = Integer.MAX_VALUE;
+        int minY = Integer.MAX_VALUE;
+        int maxX = Integer.MIN_VALUE;
+        int maxY = Integer.MIN_VALUE;
+        for (int i = 0; i < count; i++){
+            int radius = fractals.getRadius(i);
+            minX = Math.min(minX, fractals.getCenterX(i) - radius);
+            minY = Math.min(minY, fractals.getCenterY(i) - radius);
+            maxX = Math.max(maxX, fractals.getCenterX(i) + radius);
+            maxY = Math.max(maxY, fractals.getCenterY(i) + radius);
+        }
+        bounds = new Rectangle(minX, minY, maxX - minX + 1, maxY - minY + 1);
+        // about one cell per fractal
+        cellSize = Math.max(MIN_CELL_SIZE, (int)Math.sqrt((double)bounds.width * bounds.height / count));
+        left = minX;
+        top = minY;
+        columns = bounds.width / cellSize + 1;
+        rows = bounds.height / cellSize + 1;
+        int cells = columns * rows;
+        if (cellStart.length < cells + 1){
+            cellStart = new int[cells + 1];
+        } else {
+            Arrays.fill(cellStart, 0, cells + 1, 0);
+        }
+        for (int i = 0; i < count; i++){
+            int radius = fractals.getRadius(i);
+            int firstColumn = column(fractals.getCenterX(i) - radius);
+            int lastColumn = column(fractals.getCenterX(i) + radius);
+            int firstRow = row(fractals.getCenterY(i) - radius);
+            int lastRow = row(fractals.getCenterY(i) + radius);
+            for (int row = firstRow; row <= lastRow; row++){
+                for (int column = firstColumn; column <= lastColumn; column++){
+                    cellStart[row * columns + column + 1]++;
+                }
+            }
+        }
+        for (int cell = 0; cell < cells; cell++){
+            cellStart[cell + 1] += cellStart[cell];
+        }
+        if (items.length < cellStart[cells]){
+            items = new int[cellStart[cells]];
+        }
+        if (next.length < cells){
+            next = new int[cells];
+        }
+        System.arraycopy(cellStart, 0, next, 0, cells);
+        for (int i = 0; i < count; i++){
+            int radius = fractals.getRadius(i);
+            int firstColumn = column(fractals.getCenterX(i) - radius);
+            int lastColumn = column(fractals.getCenterX(i) + radius);
+            int firstRow = row(fractals.getCenterY(i) - radius);
+            int lastRow = row(fractals.getCenterY(i) + radius);
+            for (int row = firstRow; row <= lastRow; row++){
+                for (int column = firstColumn; column <= lastColumn; column++){
+                    items[next[row * columns + column]++] = i;
+                }
+            }
+        }
+    }
+
+    /**
+     * Retrieves the smallest rectangle containing all the fractals
+     * @return the bounds of all the fractals
+     */
+    public Rectangle getBounds(){
+        return new Rectangle(bounds);
+    }
+
+    /**
+     * Finds the fractals whose bounding box touches the given area
+     * @param area      the area to search
+     * @param result    list the indexes of the found fractals are put into, in drawing order; cleared first
+     */
+    public void query(Rectangle area, IntArrayList result){
+        result.clear();
+        if (columns == 0 || !area.intersects(bounds)){
+            return;
+        }
+        int areaRight = area.x + area.width;
+        int areaBottom = area.y + area.height;
+        int firstColumn = column(Math.max(area.x, left));
+        int lastColumn = column(Math.min(areaRight, left + bounds.width - 1));
+        int firstRow = row(Math.max(area.y, top));
+        int lastRow = row(Math.min(areaBottom, top + bounds.height - 1));
+        for (int row = firstRow; row <= lastRow; row++){
+            for (int column = firstColumn; column <= lastColumn; column++){
+                int cell = row * columns + column;
+                for (int item = cellStart[cell]; item < cellStart[cell + 1]; item++){
+                    int i = items[item];
+                    int radius = fractals.getRadius(i);
+                    int x = fractals.getCenterX(i) - radius;
+                    int y = fractals.getCenterY(i) - radius;
+                    // report the fractal only from its first cell inside the searched cells
+                    if (Math.max(column(x), firstColumn) != column || Math.max(row(y), firstRow) != row){
+                        continue;
+                    }
+                    if (x <= areaRight && y <= areaBottom && x + 2 * radius >= area.x && y + 2 * radius >= area.y){
+                        result.add(i);
+                    }
+                }
+            }
+        }
+        result.sort();
+    }
+
+    /**
+     * Finds the top-most (last drawn) fractal containing the given point
+     * @param x x coordinate of the point
+     * @param y y coordinate of the point
+     * @return the index of the fractal, -1 if there is no fractal at the point
+     */
+    public int find(int x, int y){
+        if (columns == 0 || !bounds.contains(x, y)){
+            return -1;
+        }
+        int cell = row(y) * columns + column(x);
+        for (int item = cellStart[cell + 1] - 1; item >= cellStart[cell]; item--){
+            int i = items[item];
+            long dx = x - fractals.getCenterX(i);
+            long dy = y - fractals.getCenterY(i);
+            long radius = fractals.getRadius(i);
+            if (dx * dx + dy * dy <= radius * radius){
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Calculates the column of the given x coordinate, clamped to the grid
+     * @param x the x coordinate
+     * @return the column of the cell
+     */
+    private int column(int x){
+        return Math.min(columns - 1, Math.max(0, (x - left) / cellSize));
+    }
+
+    /**
+     * Calculates the row of the given y coordinate, clamped to the grid
+     * @param y the y coordinate
+     * @return the row of the cell
+     */
+    private int row(int y){
+        return Math.min(rows - 1, Math.max(0, (y - top) / cellSize));
+    }
+}
@@ -0,0 +1,232 @@
+import java.util.BitSet;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * One finished generation of fractals that never changes after it is published, so painters can draw it while the
+ * next one is generated. Readers acquire the snapshot before using it and close it when they are done; once it has
+ * been replaced and the last reader is done, its buffer is handed back for reuse. Acquiring and closing only use
+ * atomic counters, no locks
+ *
+ * @author Iulia Bejsovec
+ * @version 10/2026
+ */
+public class FractalSnapshot implements AutoCloseable{
+    /** the fractals, never changed while the snapshot is in use */
+    private final FractalBuffer fractals;
+    /** version of the parameters the fractals were generated with */
+    private final long version;
+    /** number of holders: the generator while the snapshot is published plus every reader, 0 once it is retired */
+    private final AtomicInteger references;
+    /** receives the buffer once the snapshot is retired, null to leave it to the garbage collector */
+    private final Consumer<FractalBuffer> recycler;
+    /** spatial index over the fractals, built by the first reader that needs it */
+    private volatile FractalGrid spatialIndex;
+    /** fractals completely covered by fractals drawn after them, left out when drawing */
+    private final BitSet hidden;
+    /** drawing order grouped by palette entry, found by the last reader that needed other entries */
+    private volatile ColorBatches colorBatches;
+    /** drawing order of all the fractals, hidden ones too, found like colorBatches */
+    private volatile ColorBatches allColorBatches;
+
+    /**
+     * Creates a snapshot of the given fractals, held once by its creator
+     * @param fractals  the fractals, must not be changed afterwards
+     * @param version   version of the parameters the fractals were generated with
+     * @param recycler  receives the buffer once the snapshot is retired, null to leave it to the garbage collector
+     * @throws IllegalArgumentException if fractals is null
+     */
+    public FractalSnapshot(FractalBuffer fractals, long version, Consumer<FractalBuffer> recycler){
+        this(fractals, version, new BitSet(), recycler);
+    }
+
+    /**
+     * Creates a snapshot of the given fractals leaving out the hidden ones when drawn, held once by its creator
+     * @param fractals  the fractals, must not be changed afterwards
+     * @param version   version of the parameters the fractals were generated with
+     * @param hidden    indexes of the fractals completely covered by fractals drawn after them, must not be changed
+     *                  afterwards
+     * @param recycler  receives the buffer once the snapshot is retired, null to leave it to the garbage collector
+     * @throws IllegalArgumentException if fractals or hidden is null
+     */
+    public FractalSnapshot(FractalBuffer fractals, long version, BitSet hidden, Consumer<FractalBuffer> recycler){
+        if (fractals == null || hidden == null){
+            throw new IllegalArgumentException("Buffer cannot be null");
+        }
+        this.fractals = fractals;
+        this.version = version;
+        this.hidden = hidden;
+        this.recycler = recycler;
+        this.references = new AtomicInteger(1);
+    }
+
+    /**
+     * Adds a holder of the snapshot, unless it is already retired
+     * @return true if the snapshot can be used until close is called, false if it is retired
+     */
+    public boolean acquire(){
+        while (true){
+            int count = references.get();
+            if (count == 0){
+                return false;
+            }
+            if (references.compareAndSet(count, count + 1)){
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Removes a holder of the snapshot, retiring it and recycling its buffer when it was the last one
+     */
+    @Override
+    public void close(){
+        if (references.decrementAndGet() == 0 && recycler != null){
+            recycler.accept(fractals);
+        }
+    }
+
+    /**
+     * Retrieves the version of the parameters the fractals were generated with
+     * @return the parameter version
+     */
+    public long getVersion(){
+        return version;
+    }
+
+    /**
+     * Returns the number of fractals
+     * @return the number of fractals
+     */
+    public int size(){
+        return fractals.size();
+    }
+
+    /**
+     * Checks if the fractal at the given index is completely covered by fractals drawn after it, so drawing it
+     * changes no pixel
+     * @param index the index of the fractal
+     * @return true if it is left out when drawing, false otherwise
+     */
+    public boolean isHidden(int index){
+        return hidden.get(index);
+    }
+
+    /**
+     * Finds the first fractal at or after the given index that is drawn
+     * @param index the index to start at
+     * @return the index of the next fractal that is not hidden, size() if there is none
+     */
+    public int nextVisible(int index){
+        return Math.min(hidden.nextClearBit(index), fractals.size());
+    }
+
+    /**
+     * Returns the number of fractals left out when drawing
+     * @return the number of hidden fractals
+     */
+    public int getHiddenCount(){
+        return hidden.cardinality();
+    }
+
+    /**
+     * Retrieves the x coordinate of the center point of the fractal at the given index
+     * @param index the index of the fractal
+     * @return the x coordinate of the center point
+     */
+    public int getCenterX(int index){
+        return fractals.getCenterX(index);
+    }
+
+    /**
+     * Retrieves the y coordinate of the center point of the fractal at the given index
+     * @param index the index of the fractal
+     * @return the y coordinate of the center point
+     */
+    public int getCenterY(int index){
+        return fractals.getCenterY(index);
+    }
+
+    /**
+     * Retrieves the radius of the fractal at the given index
+     * @param index the index of the fractal
+     * @return the radius of the fractal
+     */
+    public int getRadius(int index){
+        return fractals.getRadius(index);
+    }
+
+    /**
+     * Retrieves the level of the fractal at the given index
+     * @param index the index of the fractal
+     * @return the level of the fractal, 1 being the last level (pear)
+     */
+    public int getLevel(int index){
+        return fractals.getLevel(index);
+    }
+
+    /**
+     * Retrieves the spatial index over the fractals, building it on first use. Two readers may both build it at
+     * the same time, one of the equal indexes is kept
+     * @return the grid over the fractals
+     */
+    public FractalGrid getSpatialIndex(){
+        FractalGrid grid = spatialIndex;
+        if (grid == null){
+            grid = new FractalGrid();
+            grid.build(fractals);
+            spatialIndex = grid;
+        }
+        return grid;
+    }
+
+    /**
+     * Retrieves the level of the main parent, the highest level of the fractals
+     * @return the level of the main parent, 0 when there are no fractals
+     */
+    public int getTopLevel(){
+        // the fractals always form a complete tree in drawing order, the main parent in the middle
+        return fractals.isEmpty() ? 0 : fractals.getLevel(fractals.size() / 2);
+    }
+
+    /**
+     * Retrieves the drawing order of the visible fractals grouped by palette entry, finding it when it was not found
+     * for the same entries before. Two readers may both find it at the same time, one of the equal orders is kept
+     * @param levelEntries  palette entry of every level, indexed by the level
+     * @return the drawing order
+     */
+    public ColorBatches getColorBatches(int[] levelEntries){
+        ColorBatches batches = colorBatches;
+        if (batches == null || !batches.hasEntries(levelEntries)){
+            batches = new ColorBatches(this, levelEntries, true);
+            colorBatches = batches;
+        }
+        return batches;
+    }
+
+    /**
+     * Retrieves the drawing order of all the fractals grouped by palette entry, the hidden ones too, for drawing
+     * them at another scale where they may not be covered. Found like getColorBatches
+     * @param levelEntries  palette entry of every level, indexed by the level
+     * @return the drawing order
+     */
+    public ColorBatches getAllColorBatches(int[] levelEntries){
+        if (hidden.isEmpty()){
+            return getColorBatches(levelEntries);
+        }
+        ColorBatches batches = allColorBatches;
+        if (batches == null || !batches.hasEntries(levelEntries)){
+            batches = new ColorBatches(this, levelEntries, false);
+            allColorBatches = batches;
+        }
+        return batches;
+    }
+
+    /**
+     * Retrieves the fractals for reading, they must not be changed
+     * @return the buffer holding the fractals
+     */
+    FractalBuffer getBuffer(){
+        return fractals;
+    }
+}
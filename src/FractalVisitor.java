@@ -0,0 +1,17 @@
+/**
+ * Receives the fractals one by one as they are generated, in drawing order, so they can be used without storing them
+ *
+ * @author Iulia Bejsovec
+ * @version 10/2026
+ */
+public interface FractalVisitor {
+    /**
+     * Receives one generated fractal
+     * @param x         x coordinate of the center point
+     * @param y         y coordinate of the center point
+     * @param radius    radius of the fractal
+     * @param depth     number of levels between the fractal and the main parent, 0 for the main parent
+     * @param pear      true for the last level (pear), false for the cactus
+     */
+    void visit(double x, double y, double radius, int depth, boolean pear);
+}
@@ -5,17 +5,19 @@ import javax.swing.JComboBox;
 import javax.swing.JButton;
 import javax.swing.JSlider;
 import javax.swing.JColorChooser;
+import javax.swing.JCheckBox;
 import java.awt.Dimension;
 import java.awt.Color;
 
 
 /**
  * GUI with components to set the settings for the fractal drawing with the parameters:
- * -recursion depth of the fractals (2 to 10)
+ * -recursion depth of the fractals (2 to 30)
  * -ratio of child's radius to parent's radius (40 to 70)
  * -degree of the position of the child to the parent (25 to 60)
  * -cactus color chooser
  * -pear color chooser
+ * -gradient of the cactus down to a tip color chooser
  * Controller part of the MVC
  *
  * @author Iulia Bejsovec with help of GuiGenie - Copyright (c) 2004 Mario Awad.
@@ -28,6 +30,8 @@ public class GUI{
     int windowWidth = 300;
     /** height of the window */
     int windowHeight = 630;
+    /** color the tip color chooser starts with */
+    private Color defaultTipColor = new Color(154, 205, 50);
     
     /** label for the recursion depth*/
     private JLabel recursionDepthLabel;
@@ -50,8 +54,14 @@ public class GUI{
     private JButton chooseCactusColor;
     /** color chooser for the pear color */
     private JButton choosePearColor;
+    /** check box fading the cactus from the cactus color down to the tip color */
+    private JCheckBox gradientCheckBox;
+    /** color chooser for the tip color */
+    private JButton chooseTipColor;
     /** button to draw the fractals*/
     private JButton drawButton;
+    /** display showing the previews while the sliders move, null when there is none */
+    private Display previewDisplay;
     
     /**
      * Creates the GUI with the settings (controls)
@@ -69,7 +79,11 @@ public class GUI{
         frame.setLocationRelativeTo(null); 
         frame.setVisible(true);
         
-        Integer[] recursionDepthComboBoxItems = {2, 3, 4, 5, 6, 7, 8, 9, 10};
+        Integer[] recursionDepthComboBoxItems = new Integer[GenerateFractal.MAX_RECURSION_DEPTH -
+                                                           GenerateFractal.MIN_RECURSION_DEPTH + 1];
+        for (int i = 0; i < recursionDepthComboBoxItems.length; i++){
+            recursionDepthComboBoxItems[i] = GenerateFractal.MIN_RECURSION_DEPTH + i;
+        }
 
         recursionDepthComboBox = new JComboBox<>(recursionDepthComboBoxItems);
         childRadiusSlider = new JSlider(40, 70);
@@ -83,6 +97,8 @@ public class GUI{
         
         chooseCactusColor = new JButton();
         choosePearColor = new JButton();
+        gradientCheckBox = new JCheckBox("Gradient to");
+        chooseTipColor = new JButton();
         drawButton = new JButton("Draw");
 
         //set components properties
@@ -99,7 +115,7 @@ public class GUI{
         childPositionSlider.setPaintLabels(true);
 
         childRadiusSlider.setValue(fractals.getRadiusRatio());
-        recursionDepthComboBox.setSelectedIndex(fractals.getRecursionDepth()-2);
+        recursionDepthComboBox.setSelectedIndex(fractals.getRecursionDepth() - GenerateFractal.MIN_RECURSION_DEPTH);
         
         panel.setPreferredSize(new Dimension(windowHeight, windowWidth));
         panel.setLayout(null);
@@ -115,6 +131,8 @@ public class GUI{
         panel.add(pearColorLabel);
         panel.add(chooseCactusColor);
         panel.add(choosePearColor);
+        panel.add(gradientCheckBox);
+        panel.add(chooseTipColor);
         panel.add(drawButton);
 
         //set component bounds
@@ -128,6 +146,8 @@ public class GUI{
         pearColorLabel.setBounds(35, 210, 100, 25);
         chooseCactusColor.setBounds(135, 160, 25, 25);
         choosePearColor.setBounds(135, 210, 25, 25);
+        gradientCheckBox.setBounds(180, 160, 100, 25);
+        chooseTipColor.setBounds(280, 160, 25, 25);
         drawButton.setBounds(425, 165, 120, 50);
         
         //adding action listeners
@@ -148,11 +168,54 @@ public class GUI{
                     }
                 }
         );
+        LevelPalette palette = allFractals.getPalette();
+        gradientCheckBox.setSelected(palette.size() > 2);
+        chooseTipColor.setBackground(palette.size() > 2 ? palette.getColor(palette.size() - 1) : defaultTipColor);
+        chooseTipColor.addActionListener( e -> {
+                    Color color = JColorChooser.showDialog(panel, "Color chooser", chooseTipColor.getBackground());
+                    if (color != null){
+                        chooseTipColor.setBackground(color);
+                    }
+                }
+        );
         childPositionSlider.setValue((int)Math.toDegrees(allFractals.getDegree()));
+        childRadiusSlider.addChangeListener( e -> requestPreview() );
+        childPositionSlider.addChangeListener( e -> requestPreview() );
         drawButton.addActionListener( e -> fractals.setData((Integer)(recursionDepthComboBox.getSelectedItem()),
-                                childRadiusSlider.getValue(), childPositionSlider.getValue(),
-                                chooseCactusColor.getBackground() , choosePearColor.getBackground())
+                                childRadiusSlider.getValue(), childPositionSlider.getValue(), getPalette())
         );
     }
+
+    /**
+     * Sets the display that shows live previews while the sliders move
+     * @param display display to show the previews on, null to turn the previews off
+     */
+    public void setPreviewDisplay(Display display){
+        this.previewDisplay = display;
+    }
+
+    /**
+     * Asks the preview display for a preview of the current settings
+     */
+    private void requestPreview(){
+        if (previewDisplay != null){
+            previewDisplay.preview((Integer)(recursionDepthComboBox.getSelectedItem()), childRadiusSlider.getValue(),
+                                   childPositionSlider.getValue(), getPalette());
+        }
+    }
+
+    /**
+     * Builds the palette from the chosen colors: the cactus and pear colors, with the cactus fading to the tip color
+     * when the gradient is checked
+     * @return the chosen palette
+     */
+    private LevelPalette getPalette(){
+        if (gradientCheckBox.isSelected()){
+            return LevelPalette.gradient(chooseCactusColor.getBackground(), chooseTipColor.getBackground(),
+                                         choosePearColor.getBackground(),
+                                         (Integer)(recursionDepthComboBox.getSelectedItem()));
+        }
+        return new LevelPalette(choosePearColor.getBackground(), chooseCactusColor.getBackground());
+    }
 }
 
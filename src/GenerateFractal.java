@@ -1,6 +1,24 @@
 import java.awt.Color;
 import java.awt.Graphics;
-import java.awt.Point;
+import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.DoublePredicate;
 
 /**
  * Class holds the settings information about the fractals, generates them and draws when asked to by its observers.
@@ -10,18 +28,42 @@ import java.awt.Point;
  * @version 02/2020
  */
 public class GenerateFractal implements Subject{
-    /** list of observers */
-    private ArrayList<Observer> observers;
-    /** list of all fractals */
-    private ArrayList<Fractal> allFractals;
+    /** smallest recursion depth that can be set */
+    public static final int MIN_RECURSION_DEPTH = 2;
+    /** biggest recursion depth that can be set */
+    public static final int MAX_RECURSION_DEPTH = 30;
+    /** first int of a geometry file */
+    private static final int GEOMETRY_MAGIC = 0x4F504746;
+    /** version of the geometry file format written by saveGeometry */
+    private static final int GEOMETRY_VERSION = 1;
+    /** bytes before the fractals in a geometry file: seven ints and four doubles of parameters */
+    private static final int GEOMETRY_HEADER_BYTES = 7 * Integer.BYTES + 4 * Double.BYTES;
+    /** a generation checks if it was abandoned whenever the slot it writes has none of these bits set */
+    private static final int INTERRUPT_CHECK_MASK = 0xFFF;
+    /** mailboxes of the attached observers, replaced as a whole on every attach and detach (copy-on-write) */
+    private volatile Mailbox[] observers;
+    /** runs the notifications of the observers, null to notify them on the caller's thread */
+    private volatile Executor notificationExecutor;
+    /** number of the latest notification */
+    private AtomicLong notifications;
+    /** lock of the changes of the observer list, so attaching never waits for a generation */
+    private final Object observersLock = new Object();
+    /** fractals being generated (center points, radiuses and levels), only touched while generating */
+    private FractalBuffer allFractals;
+    /** latest finished fractals, replaced as a whole after every generation */
+    private AtomicReference<FractalSnapshot> snapshot;
+    /** buffers of retired snapshots kept for the next generations */
+    private ConcurrentLinkedQueue<FractalBuffer> bufferPool;
+    /** number of buffers in the pool */
+    private AtomicInteger pooledBuffers;
+    /** most buffers kept in the pool */
+    private int BUFFER_POOL_SIZE = 2;
     /** recursion depth */
     private int recursionDepth;
     /** ratio of child radius to parent's radius */
     private double radiusRatio;
-    /** color of the body of the cactus */
-    private Color cactusColor;
-    /** color of the pear (last level fractals) */
-    private Color pearColor;
+    /** colors of the levels: the body of the cactus and the pear (last level fractals) */
+    private LevelPalette palette;
     /** degree of the position of the child to the parent*/
     private double degree;
     /** default recursion depth */
@@ -36,6 +78,58 @@ public class GenerateFractal implements Subject{
     private Color DEFAULT_PEAR_COLOR = new Color(139, 34, 139);
     /** main parent's starting radius */
     private int STARTING_RADIUS = 100;
+    /** default recursion depth at or below which parallel generation stops splitting the subtrees */
+    private int DEFAULT_PARALLEL_CUTOFF = 8;
+    /** default size in pixels under which a subtree's bounding circle is not descended into */
+    private double DEFAULT_MIN_SUBTREE_SIZE = 4;
+    /** biggest radius drawn as an oval, bigger fractals are filled row by row to stay exact when zoomed in */
+    private int MAX_OVAL_RADIUS = 1 << 14;
+    /** size in pixels under which a subtree's bounding circle is not descended into */
+    private double minSubtreeSize;
+    /** default most bytes the cached fractals may take */
+    private long DEFAULT_CACHE_BYTES = 32L * 1024 * 1024;
+    /** recently generated fractals by their parameters */
+    private GeometryCache geometryCache;
+    /** counts of the generations and paintings, with the time of the last ones */
+    private RenderMetrics metrics;
+    /** draws the fractals straight into the pixels of images */
+    private CircleRasterizer rasterizer;
+    /** whether fractals completely covered by later ones are left out when drawing */
+    private boolean occlusionCulling;
+    /** whether the fractals were generated, with the parameters recorded below */
+    private boolean generated;
+    /** recursion depth the fractals were generated with */
+    private int generatedDepth;
+    /** number of levels of the generated fractals, less than the depth when cut by the level of detail */
+    private int generatedLevels;
+    /** radius ratio the fractals were generated with */
+    private double generatedRatio;
+    /** degree the fractals were generated with */
+    private double generatedDegree;
+    /** width of the panel the fractals were generated for */
+    private int generatedWidth;
+    /** height of the panel the fractals were generated for */
+    private int generatedHeight;
+    /** main parent's radius the fractals were generated with */
+    private double generatedRadius;
+    /** minimum subtree size the fractals were generated with */
+    private double generatedMinSubtreeSize;
+    /** version of the parameters, changes whenever a parameter affecting the drawing changes */
+    private long parameterVersion;
+    /** sines and cosines of the directions of the children, rebuilt when the degree changes */
+    private AngleKernel angles;
+    /** whether the directions are computed exactly like Math.sin and Math.cos, or by composed rotations */
+    private boolean exactTrigonometry;
+    /** whether the subtrees are generated in parallel */
+    private boolean parallel;
+    /** recursion depth at or below which parallel generation stops splitting the subtrees */
+    private int parallelCutoffDepth;
+    /** thread that called the running generation, null when none is running */
+    private volatile Thread generatingThread;
+    /** number of changes of the recursion depth, radius ratio, degree, level of detail or trigonometry */
+    private volatile long geometryChanges;
+    /** number of changes of the geometry parameters when the running generation started */
+    private long generatingChanges;
     
     /**
      * Creates the object while setting all the values to default
@@ -43,11 +137,22 @@ public class GenerateFractal implements Subject{
     public GenerateFractal(){
         recursionDepth = DEFAULT_DEPTH;
         radiusRatio = DEFAULT_RATIO;
-        cactusColor = DEFAULT_CACTUS_COLOR;
-        pearColor = DEFAULT_PEAR_COLOR;
+        palette = new LevelPalette(DEFAULT_PEAR_COLOR, DEFAULT_CACTUS_COLOR);
         degree = DEFAULT_DEGREE;
-        allFractals = new ArrayList<>();
-        observers = new ArrayList<>();
+        parallelCutoffDepth = DEFAULT_PARALLEL_CUTOFF;
+        minSubtreeSize = DEFAULT_MIN_SUBTREE_SIZE;
+        geometryCache = new GeometryCache(DEFAULT_CACHE_BYTES);
+        metrics = new RenderMetrics();
+        rasterizer = new CircleRasterizer();
+        occlusionCulling = false;
+        exactTrigonometry = true;
+        angles = new AngleKernel(degree, MAX_RECURSION_DEPTH, exactTrigonometry);
+        allFractals = new FractalBuffer();
+        bufferPool = new ConcurrentLinkedQueue<>();
+        pooledBuffers = new AtomicInteger();
+        snapshot = new AtomicReference<>(new FractalSnapshot(allFractals, parameterVersion, this::recycle));
+        observers = new Mailbox[0];
+        notifications = new AtomicLong();
     }
     
     /**
@@ -57,67 +162,453 @@ public class GenerateFractal implements Subject{
      * @return current object
      */
     public GenerateFractal getData(int width, int height){
+        return getData(width, height, STARTING_RADIUS);
+    }
+
+    /**
+     * Generates fractals with the start in the bottom middle of the given parameters, with the main parent of the
+     * given radius, used to scale the fractals to big outputs. The fractals are generated into a buffer nobody is
+     * reading and published as a new snapshot when they are finished, so they can be generated on another thread
+     * than the one drawing them. Only one thread generates at a time. A generation is abandoned when the calling
+     * thread is interrupted or the parameters are set on another thread: nothing is published and the interrupt
+     * status is kept for the caller to check. Every finished generation is counted in the metrics and recorded as a
+     * GenerationEvent
+     * @param width             width of the panel
+     * @param height            height of the panel
+     * @param startingRadius    radius of the main parent
+     * @return current object
+     * @throws IllegalArgumentException if width or height is not positive
+     * @throws IllegalArgumentException if starting radius is smaller than 1
+     */
+    public synchronized GenerateFractal getData(int width, int height, double startingRadius){
         if (width <= 0 || height <= 0){
             throw new IllegalArgumentException("Width and height must be bigger than 0");
         }
-        allFractals.clear();
-        Point startingPoint = new Point((width/2), height - STARTING_RADIUS );
-        generateFractals(recursionDepth, STARTING_RADIUS, startingPoint, degree);
+        if (startingRadius < 1){
+            throw new IllegalArgumentException("Starting radius must be at least 1");
+        }
+        boolean sameGeometry = generated && width == generatedWidth && height == generatedHeight &&
+                               startingRadius == generatedRadius && radiusRatio == generatedRatio &&
+                               degree == generatedDegree && minSubtreeSize == generatedMinSubtreeSize;
+        if (sameGeometry && recursionDepth == generatedDepth){
+            // the colors are looked up by level while drawing, so a color change needs no work here
+            return this;
+        }
+        GenerationEvent event = new GenerationEvent();
+        event.begin();
+        long start = System.nanoTime();
+        long version = parameterVersion;
+        GeometryCache.Key key = new GeometryCache.Key(recursionDepth, radiusRatio, degree, width, height,
+                                                      startingRadius, minSubtreeSize);
+        FractalBuffer published = snapshot.get().getBuffer();
+        allFractals = takeBuffer();
+        String source;
+        int levels = generatedLevels;
+        if (geometryCache.get(key, allFractals)){
+            generatedLevels = 32 - Integer.numberOfLeadingZeros(allFractals.size());
+            source = "cached";
+        } else {
+            generatingChanges = geometryChanges;
+            generatingThread = Thread.currentThread();
+            if (sameGeometry){
+                allFractals.copyFrom(published);
+                changeDepth(startingRadius);
+                source = "incremental";
+            } else {
+                source = "generated";
+                int centerY = (int)(height - startingRadius);
+                generatedLevels = countLevels(recursionDepth, startingRadius);
+                allFractals.setSize((1 << generatedLevels) - 1);
+                if (parallel && recursionDepth > parallelCutoffDepth){
+                    ForkJoinPool.commonPool().invoke(new GenerateTask(this, recursionDepth, startingRadius,
+                                                                      width/2, centerY, degree, 1, 0));
+                } else {
+                    generateFractals(recursionDepth, startingRadius, width/2, centerY, degree, 1, 0);
+                }
+            }
+            boolean abandoned = isAbandoned();
+            generatingThread = null;
+            if (abandoned){
+                // nobody waits for these fractals anymore, the published ones stay
+                generatedLevels = levels;
+                recycle(allFractals);
+                return this;
+            }
+            geometryCache.put(key, allFractals);
+        }
+        int count = allFractals.size();
+        publish(version);
+        recordGeneration(event, source, System.nanoTime() - start, count);
+        generated = true;
+        generatedDepth = recursionDepth;
+        generatedWidth = width;
+        generatedHeight = height;
+        generatedRadius = startingRadius;
+        generatedRatio = radiusRatio;
+        generatedDegree = degree;
+        generatedMinSubtreeSize = minSubtreeSize;
         return this;
     }
+
+    /**
+     * Counts a generation in the metrics and commits its flight recorder event if it is recorded
+     * @param event     event started when the generation started
+     * @param source    how the fractals were made: generated, incremental, cached or loaded
+     * @param nanos     time the generation took in nanoseconds
+     * @param fractals  number of fractals made
+     */
+    private void recordGeneration(GenerationEvent event, String source, long nanos, int fractals){
+        switch (source){
+            case "incremental":
+                metrics.recordIncrementalGeneration(nanos, fractals);
+                break;
+            case "cached":
+                metrics.recordCacheHit(nanos, fractals);
+                break;
+            case "loaded":
+                metrics.recordLoad(nanos, fractals);
+                break;
+            default:
+                metrics.recordGeneration(nanos, fractals);
+        }
+        if (event.shouldCommit()){
+            event.source = source;
+            event.fractals = fractals;
+            event.recursionDepth = recursionDepth;
+            event.levels = generatedLevels;
+            event.hidden = snapshot.get().getHiddenCount();
+            event.commit();
+        }
+    }
+
+    /**
+     * Checks if the running generation was abandoned, because the thread that called it was interrupted or the
+     * geometry parameters were set since it started
+     * @return true if the generation should stop, false otherwise
+     */
+    private boolean isAbandoned(){
+        Thread caller = generatingThread;
+        return caller != null && (caller.isInterrupted() || geometryChanges != generatingChanges);
+    }
+
+    /**
+     * Checks if the generated fractals are the ones getData would generate for the given size and radius, so calling
+     * it would do nothing
+     * @param width             width of the panel
+     * @param height            height of the panel
+     * @param startingRadius    radius of the main parent
+     * @return true if the fractals are up to date, false if getData would generate them
+     */
+    public boolean isGenerated(int width, int height, double startingRadius){
+        return generated && width == generatedWidth && height == generatedHeight &&
+               startingRadius == generatedRadius && radiusRatio == generatedRatio && degree == generatedDegree &&
+               minSubtreeSize == generatedMinSubtreeSize && recursionDepth == generatedDepth;
+    }
+
+    /**
+     * Updates the generated fractals to the new recursion depth without generating them again. The fractals always
+     * form a complete tree stored in order, so a fractal's position tells how high in the tree it is and which way
+     * it was reached from the main parent: a deeper tree only extends the old last level, a shallower one keeps
+     * every other fractal of the levels that are left
+     * @param startingRadius    radius of the main parent
+     */
+    private void changeDepth(double startingRadius){
+        int oldLevels = generatedLevels;
+        int newLevels = countLevels(recursionDepth, startingRadius);
+        int oldSize = allFractals.size();
+        if (newLevels > oldLevels){
+            int shift = newLevels - oldLevels;
+            double leafRadius = startingRadius;
+            for (int level = 1; level < oldLevels; level++){
+                leafRadius *= radiusRatio;
+            }
+            int leafDepth = recursionDepth - oldLevels + 1;
+            allFractals.setSize((1 << newLevels) - 1);
+            // going backwards, every fractal moves to a slot at or after its old one, so nothing unread is overwritten
+            for (int i = oldSize - 1; i >= 0; i--){
+                if ((i & INTERRUPT_CHECK_MASK) == 0 && isAbandoned()){
+                    return;
+                }
+                if (i % 2 == 0){
+                    int leaf = i / 2;
+                    double direction = degree;
+                    int step = 1;
+                    for (int bit = oldLevels - 2; bit >= 0; bit--){
+                        boolean right = ((leaf >> bit) & 1) == 0;
+                        direction += right ? degree : -degree;
+                        step += right ? 1 : -1;
+                    }
+                    generateFractals(leafDepth, leafRadius, allFractals.getCenterX(i), allFractals.getCenterY(i),
+                                     direction, step, i << shift);
+                } else {
+                    allFractals.copy(i, ((i + 1) << shift) - 1);
+                }
+            }
+        } else if (newLevels < oldLevels){
+            int shift = oldLevels - newLevels;
+            int newSize = (1 << newLevels) - 1;
+            for (int i = 0; i < newSize; i++){
+                allFractals.copy(((i + 1) << shift) - 1, i);
+            }
+            allFractals.setSize(newSize);
+        }
+        for (int i = 0; i < allFractals.size(); i++){
+            int height = Integer.numberOfTrailingZeros(i + 1);
+            allFractals.setLevel(i, height == 0 ? 1 : recursionDepth - (newLevels - 1 - height));
+        }
+        generatedLevels = newLevels;
+    }
+
+    /**
+     * Calculates the biggest main parent radius for which the whole fractal fits the given size, using the circle
+     * that bounds all the children of a parent
+     * @param width     width of the output
+     * @param height    height of the output
+     * @return the biggest starting radius that fits
+     */
+    public double getFittingRadius(int width, int height){
+        double boundingScale = (1 + radiusRatio) / (1 - radiusRatio);
+        return Math.min(height / (1 + boundingScale), width / (2 * boundingScale));
+    }
+
+    /**
+     * Counts the fractals generated for a subtree, so every subtree can be given its slot range up front
+     * @param recursionDepth    recursion depth of the subtree
+     * @param radius            radius of the subtree's parent
+     * @return number of fractals in the subtree
+     */
+    private int countFractals(int recursionDepth, double radius){
+        return (1 << countLevels(recursionDepth, radius)) - 1;
+    }
+
+    /**
+     * Counts the levels generated for a subtree. Both children of a parent have the same radius, so a subtree is
+     * always complete down to where it stops
+     * @param recursionDepth    recursion depth of the subtree
+     * @param radius            radius of the subtree's parent
+     * @return number of levels in the subtree
+     */
+    private int countLevels(int recursionDepth, double radius){
+        int levels = 1;
+        while (recursionDepth > 1 && isDetailVisible(radius * radiusRatio)){
+            levels++;
+            recursionDepth--;
+            radius *= radiusRatio;
+        }
+        return levels;
+    }
+
+    /**
+     * Level-of-detail rule: decides whether the children of a parent are still worth generating. They are not when
+     * they would be smaller than a pixel or when the circle bounding a child's whole subtree is smaller than the
+     * minimum subtree size; the parent is then drawn as the last level instead
+     * @param childRadius   radius of the children
+     * @return true if the children should be generated, false otherwise
+     */
+    private boolean isDetailVisible(double childRadius){
+        double subtreeDiameter = 2 * childRadius * (1 + radiusRatio) / (1 - radiusRatio);
+        return (int)childRadius >= 1 && subtreeDiameter >= minSubtreeSize;
+    }
     
     /**
-     * Recursively generates the fractals with the given parameters
+     * Generates the fractals with the given parameters, writing them in order (right subtree, parent, left subtree)
+     * starting at the given slot. Uses an explicit stack instead of recursion, so deep trees cannot overflow the
+     * call stack. Stops early when the generation is abandoned
      * @param radius        radius of the current fractal
-     * @param centerPoint   center point of the fractal
+     * @param centerX       x coordinate of the center point of the fractal
+     * @param centerY       y coordinate of the center point of the fractal
      * @param currentDegree degree of the position of the child fractal
+     * @param currentStep   degree of the position of the child fractal in whole steps of the child degree
+     * @param index         slot of the first fractal of this subtree
+     * @return the slot after the last fractal of this subtree
      * @throws IllegalArgumentException when level passed is less than 1
      * @throws IllegalArgumentException if radius passed is negative or equals 0
      */
-    private void generateFractals(int recursionDepth, double radius, Point centerPoint, 
-                                  double currentDegree){
+    private int generateFractals(int recursionDepth, double radius, int centerX, int centerY,
+                                 double currentDegree, int currentStep, int index){
         if (recursionDepth < 1){
             throw new IllegalArgumentException("Recursion depth must be positive");
         } 
         if (radius <=0){
             throw new IllegalArgumentException("Radius must be positive");
         }
-        if (recursionDepth == 1){
-            allFractals.add(new Fractal((int)radius, centerPoint, pearColor));
-        } else {
-            if (radius < 5){
-                recursionDepth = 2;
-            }
-            double childRadius = radius * radiusRatio;
-            double leftDegree = currentDegree - degree*2;  
-            
-            Point tangentPointR = 
-                new Point((int)(radius * Math.sin(currentDegree) + centerPoint.getX()), 
-                (int)(-radius * Math.cos(currentDegree) + centerPoint.getY()));
-            Point centerPointR = 
-                new Point((int)(childRadius * Math.sin(currentDegree) + 
-                tangentPointR.getX()), (int)(-childRadius * Math.cos(currentDegree) + 
-                tangentPointR.getY()));                    
-            Point tangentPointL = 
-                new Point((int)(radius * Math.sin(leftDegree) + centerPoint.getX()), 
-                (int)(-radius * Math.cos(leftDegree) + centerPoint.getY()));
-            Point centerPointLeft = 
-                new Point((int)(childRadius * Math.sin(leftDegree) + tangentPointL.getX()),
-                (int)(-childRadius * Math.cos(leftDegree) + tangentPointL.getY()));
-            generateFractals(recursionDepth - 1, childRadius, centerPointR, currentDegree + degree);
-            allFractals.add(new Fractal((int)radius, centerPoint, cactusColor));
-            generateFractals(recursionDepth - 1, childRadius, centerPointLeft, 
-                             currentDegree - degree); 
-        }
-    }
-                                                                                                    
+        // every expanded parent replaces itself with three entries: right child, itself to draw, left child
+        int stackSize = 2 * recursionDepth + 1;
+        int[] depths = new int[stackSize];
+        double[] radiuses = new double[stackSize];
+        int[] xs = new int[stackSize];
+        int[] ys = new int[stackSize];
+        double[] degrees = new double[stackSize];
+        int[] steps = new int[stackSize];
+        boolean[] expanded = new boolean[stackSize];
+        int top = 0;
+        depths[0] = recursionDepth;
+        radiuses[0] = radius;
+        xs[0] = centerX;
+        ys[0] = centerY;
+        degrees[0] = currentDegree;
+        steps[0] = currentStep;
+        expanded[0] = false;
+        while (top >= 0){
+            int depth = depths[top];
+            double r = radiuses[top];
+            int x = xs[top];
+            int y = ys[top];
+            double d = degrees[top];
+            int step = steps[top];
+            boolean drawOnly = expanded[top];
+            top--;
+            if ((index & INTERRUPT_CHECK_MASK) == 0 && isAbandoned()){
+                return index;
+            }
+            if (drawOnly){
+                allFractals.set(index++, x, y, (int)r, depth);
+                continue;
+            }
+            double childRadius = r * radiusRatio;
+            if (depth == 1 || !isDetailVisible(childRadius)){
+                allFractals.set(index++, x, y, (int)r, 1);
+                continue;
+            }
+            double leftDegree = d - degree*2;
+            top++;
+            depths[top] = depth - 1;
+            radiuses[top] = childRadius;
+            xs[top] = childX(r, childRadius, x, angles.sin(step - 2, leftDegree));
+            ys[top] = childY(r, childRadius, y, angles.cos(step - 2, leftDegree));
+            degrees[top] = d - degree;
+            steps[top] = step - 1;
+            expanded[top] = false;
+            top++;
+            depths[top] = depth;
+            radiuses[top] = r;
+            xs[top] = x;
+            ys[top] = y;
+            expanded[top] = true;
+            top++;
+            depths[top] = depth - 1;
+            radiuses[top] = childRadius;
+            xs[top] = childX(r, childRadius, x, angles.sin(step, d));
+            ys[top] = childY(r, childRadius, y, angles.cos(step, d));
+            degrees[top] = d + degree;
+            steps[top] = step + 1;
+            expanded[top] = false;
+        }
+        return index;
+    }
+
+    /**
+     * Calculates the x coordinate of a child's center point, going through the tangent point on the parent
+     * @param radius        radius of the parent
+     * @param childRadius   radius of the child
+     * @param centerX       x coordinate of the parent's center point
+     * @param sin           sine of the direction from the parent to the child
+     * @return x coordinate of the child's center point
+     */
+    private static int childX(double radius, double childRadius, int centerX, double sin){
+        int tangentX = (int)(radius * sin + centerX);
+        return (int)(childRadius * sin + tangentX);
+    }
+
+    /**
+     * Calculates the y coordinate of a child's center point, going through the tangent point on the parent
+     * @param radius        radius of the parent
+     * @param childRadius   radius of the child
+     * @param centerY       y coordinate of the parent's center point
+     * @param cos           cosine of the direction from the parent to the child
+     * @return y coordinate of the child's center point
+     */
+    private static int childY(double radius, double childRadius, int centerY, double cos){
+        int tangentY = (int)(-radius * cos + centerY);
+        return (int)(-childRadius * cos + tangentY);
+    }
+
+    /**
+     * Generates a subtree in parallel: the two children are forked while the recursion depth is above the cutoff,
+     * and each writes into the slot range that is fixed by the subtree sizes, so the result is the same as the
+     * sequential generation
+     */
+    private static class GenerateTask extends RecursiveAction{
+        /** version of the serialized form */
+        private static final long serialVersionUID = 1L;
+        /** model generating the fractals */
+        private final GenerateFractal generator;
+        /** recursion depth of the subtree */
+        private final int recursionDepth;
+        /** radius of the subtree's parent */
+        private final double radius;
+        /** x coordinate of the parent's center point */
+        private final int centerX;
+        /** y coordinate of the parent's center point */
+        private final int centerY;
+        /** degree of the position of the child fractal */
+        private final double currentDegree;
+        /** degree of the position of the child fractal in whole steps of the child degree */
+        private final int currentStep;
+        /** slot of the first fractal of the subtree */
+        private final int index;
+
+        /**
+         * Creates a task generating the subtree with the given parameters
+         * @param generator         model generating the fractals
+         * @param recursionDepth    recursion depth of the subtree
+         * @param radius            radius of the subtree's parent
+         * @param centerX           x coordinate of the parent's center point
+         * @param centerY           y coordinate of the parent's center point
+         * @param currentDegree     degree of the position of the child fractal
+         * @param currentStep       degree of the position of the child fractal in whole steps of the child degree
+         * @param index             slot of the first fractal of the subtree
+         */
+        GenerateTask(GenerateFractal generator, int recursionDepth, double radius, int centerX, int centerY,
+                     double currentDegree, int currentStep, int index){
+            this.generator = generator;
+            this.recursionDepth = recursionDepth;
+            this.radius = radius;
+            this.centerX = centerX;
+            this.centerY = centerY;
+            this.currentDegree = currentDegree;
+            this.currentStep = currentStep;
+            this.index = index;
+        }
+
+        /**
+         * Generates the subtree, splitting it into two child tasks while above the cutoff depth
+         */
+        @Override
+        protected void compute(){
+            GenerateFractal model = generator;
+            if (model.isAbandoned()){
+                return;
+            }
+            double childRadius = radius * model.radiusRatio;
+            if (recursionDepth <= model.parallelCutoffDepth || recursionDepth == 1 ||
+                !model.isDetailVisible(childRadius)){
+                model.generateFractals(recursionDepth, radius, centerX, centerY, currentDegree, currentStep, index);
+                return;
+            }
+            AngleKernel angles = model.angles;
+            double degree = model.degree;
+            double leftDegree = currentDegree - degree*2;
+            int childCount = model.countFractals(recursionDepth - 1, childRadius);
+            model.allFractals.set(index + childCount, centerX, centerY, (int)radius, recursionDepth);
+            invokeAll(new GenerateTask(model, recursionDepth - 1, childRadius,
+                                       childX(radius, childRadius, centerX, angles.sin(currentStep, currentDegree)),
+                                       childY(radius, childRadius, centerY, angles.cos(currentStep, currentDegree)),
+                                       currentDegree + degree, currentStep + 1, index),
+                      new GenerateTask(model, recursionDepth - 1, childRadius,
+                                       childX(radius, childRadius, centerX, angles.sin(currentStep - 2, leftDegree)),
+                                       childY(radius, childRadius, centerY, angles.cos(currentStep - 2, leftDegree)),
+                                       currentDegree - degree, currentStep - 1, index + childCount + 1));
+        }
+    }
+
     /**
      * Sets the fractal data to the passed values
      * @param recursionDepth    depth of recursion of fractals
      * @param radiusRatio       radius ratio of the child to the parent
      * @param cactusColor       color of the cactus
      * @param pearColor         color of the pear of the cactus
-     * @throws IllegalArgumentException if recursion depth less than 2 or bigger than 10
+     * @throws IllegalArgumentException if recursion depth less than 2 or bigger than 30
      * @throws IllegalArgumentException if radius ratio is less than 40 or bigger than 70
      * @throws IllegalArgumentException if cactus color is null
      * @throws IllegalArgumentException if pear color is null
@@ -125,35 +616,753 @@ public class GenerateFractal implements Subject{
     
     public void setData(int recursionDepth, double radiusRatio, int degree, 
                         Color cactusColor, Color pearColor ){
-        if (recursionDepth < 2 || recursionDepth > 10){
+        if (pearColor == null || cactusColor == null){
+            throw new IllegalArgumentException("Color cannot be null");
+        }
+        setData(recursionDepth, radiusRatio, degree, new LevelPalette(pearColor, cactusColor));
+    }
+
+    /**
+     * Sets the fractal data to the passed values, coloring the fractals by level with the given palette. A
+     * generation running on another thread with other geometry parameters is abandoned, so the new values do not
+     * wait for it
+     * @param recursionDepth    depth of recursion of fractals
+     * @param radiusRatio       radius ratio of the child to the parent
+     * @param degree            degree of the position of the child to the parent
+     * @param palette           colors of the pears and of the levels of the cactus
+     * @throws IllegalArgumentException if recursion depth less than 2 or bigger than 30
+     * @throws IllegalArgumentException if radius ratio is less than 40 or bigger than 70
+     * @throws IllegalArgumentException if palette is null
+     */
+    public void setData(int recursionDepth, double radiusRatio, int degree, LevelPalette palette){
+        if (recursionDepth < MIN_RECURSION_DEPTH || recursionDepth > MAX_RECURSION_DEPTH){
             throw new IllegalArgumentException("Recursion depth must be between " +
-                                                "2 and 10");
+                                                MIN_RECURSION_DEPTH + " and " + MAX_RECURSION_DEPTH);
         }
-        if (radiusRatio < 40 && radiusRatio > 70){
+        if (radiusRatio < 40 || radiusRatio > 70){
             throw new IllegalArgumentException("Radius ratio must be between 40 and " +
                                                 "70");
         }
-        if (pearColor == null || cactusColor == null){
-            throw new IllegalArgumentException("Color cannot be null");
+        if (palette == null){
+            throw new IllegalArgumentException("Palette cannot be null");
+        }
+        double newRatio = (double)(radiusRatio / 100);
+        double newDegree = Math.toRadians(degree);
+        if (recursionDepth != this.recursionDepth || newRatio != this.radiusRatio || newDegree != this.degree){
+            geometryChanges++;
+        }
+        synchronized (this){
+            if (recursionDepth != this.recursionDepth || newRatio != this.radiusRatio || newDegree != this.degree ||
+                !palette.equals(this.palette)){
+                parameterVersion++;
+            }
+            this.recursionDepth = recursionDepth;
+            this.radiusRatio = newRatio;
+            if (newDegree != this.degree){
+                angles = new AngleKernel(newDegree, MAX_RECURSION_DEPTH, exactTrigonometry);
+            }
+            this.degree = newDegree;
+            this.palette = palette;
         }
-        this.recursionDepth = recursionDepth;
-        this.radiusRatio = (double)(radiusRatio / 100);
-        this.degree = Math.toRadians(degree);
-        this.cactusColor = cactusColor;
-        this.pearColor = pearColor;
         notifyAllObservers();
     }
     
     /**
-     * Draws every fractal on the given graphics object
+     * Draws every fractal on the given graphics object, leaving out the ones covered by fractals drawn after them.
+     * The fractals are drawn in runs of one palette entry (see ColorBatches), so the color is only set once per run
+     * and the picture is the same as drawing them in order. When the clip does not cover all the fractals, only the
+     * ones the spatial index finds inside the clip are drawn. Always draws one whole snapshot, even while new
+     * fractals are being generated, without waiting for any lock. Counted in the metrics and recorded as a
+     * PaintEvent
      * @param g     graphic object to be drawn on
      */
     public void draw(Graphics g){
-        for (Fractal oneFractal : allFractals){
-            oneFractal.draw(g);
+        PaintEvent event = new PaintEvent();
+        event.begin();
+        long start = System.nanoTime();
+        int circles = 0;
+        LevelPalette colors = palette;
+        try (FractalSnapshot frame = acquireSnapshot()){
+            ColorBatches batches = frame.getColorBatches(colors.getLevelEntries(frame.getTopLevel()));
+            Rectangle clip = g.getClipBounds();
+            FractalGrid grid = clip != null ? frame.getSpatialIndex() : null;
+            BitSet inClip = null;
+            if (grid != null && !clip.contains(grid.getBounds())){
+                IntArrayList visible = new IntArrayList();
+                grid.query(clip, visible);
+                inClip = new BitSet(frame.size());
+                for (int i = 0; i < visible.size(); i++){
+                    inClip.set(visible.get(i));
+                }
+            }
+            for (int run = 0; run < batches.getRuns(); run++){
+                boolean colorSet = false;
+                for (int i = batches.getRunStart(run); i < batches.getRunEnd(run); i++){
+                    int index = batches.get(i);
+                    if (inClip != null && !inClip.get(index)){
+                        continue;
+                    }
+                    if (!colorSet){
+                        g.setColor(colors.getColor(batches.getEntry(run)));
+                        colorSet = true;
+                    }
+                    drawFractal(g, frame, index);
+                    circles++;
+                }
+            }
+        }
+        recordPaint(event, "snapshot", System.nanoTime() - start, circles);
+    }
+
+    /**
+     * Draws every fractal straight into the pixels of the image, in bands of rows drawn in parallel. Looks like
+     * draw on the whole image, see CircleRasterizer. Images whose pixels are not ints and translucent colors are
+     * drawn with draw instead. Counted in the metrics and recorded as a PaintEvent
+     * @param image the image to draw into
+     */
+    public void drawRaster(BufferedImage image){
+        drawRaster(image, 0, image.getHeight(), true);
+    }
+
+    /**
+     * Draws the fractals straight into the pixels of the image, the image showing the rows of a picture of the
+     * given height from the given top row down, for example a strip of a bigger picture. Gives exactly the rows
+     * draw gives on the whole picture
+     * @param image         the image to draw into
+     * @param top           row of the picture shown in the first row of the image
+     * @param pictureHeight height of the picture, with the same width as the image
+     * @param parallel      whether bands of rows are drawn in parallel
+     * @throws IllegalArgumentException if the rows of the image are not all inside the picture
+     */
+    public void drawRaster(BufferedImage image, int top, int pictureHeight, boolean parallel){
+        LevelPalette colors = palette;
+        if (!CircleRasterizer.canDraw(image, colors.getColors())){
+            Graphics2D g = image.createGraphics();
+            g.translate(0, -top);
+            g.clipRect(0, top, image.getWidth(), image.getHeight());
+            draw(g);
+            g.dispose();
+            return;
+        }
+        PaintEvent event = new PaintEvent();
+        event.begin();
+        long start = System.nanoTime();
+        int circles;
+        try (FractalSnapshot frame = acquireSnapshot()){
+            rasterizer.draw(frame, image, top, pictureHeight, colors, parallel);
+            circles = frame.size() - frame.getHiddenCount();
+        }
+        recordPaint(event, "raster", System.nanoTime() - start, circles);
+    }
+
+    /**
+     * Counts a painting in the metrics and commits its flight recorder event if it is recorded
+     * @param event     event started when the painting started
+     * @param mode      how the fractals were painted: snapshot, raster, view or instance
+     * @param nanos     time the painting took in nanoseconds
+     * @param circles   number of circles painted
+     */
+    private void recordPaint(PaintEvent event, String mode, long nanos, int circles){
+        metrics.recordPaint(nanos, circles);
+        if (event.shouldCommit()){
+            event.mode = mode;
+            event.circles = circles;
+            event.commit();
+        }
+    }
+
+    /**
+     * Draws one fractal on the given graphics object in its current color
+     * @param g     graphic object to be drawn on
+     * @param frame snapshot holding the fractal
+     * @param index index of the fractal
+     */
+    private void drawFractal(Graphics g, FractalSnapshot frame, int index){
+        int radius = frame.getRadius(index);
+        int diameter = radius * 2;
+        int x = frame.getCenterX(index) - radius;
+        int y = frame.getCenterY(index) - radius;
+        g.drawOval(x, y, diameter, diameter);
+        g.fillOval(x, y, diameter, diameter);
+    }
+
+    /**
+     * Acquires the latest finished fractals. The snapshot stays unchanged until it is closed, however many
+     * generations happen meanwhile, and must be closed so its buffer can be reused
+     * @return the latest snapshot, acquired
+     */
+    public FractalSnapshot acquireSnapshot(){
+        while (true){
+            FractalSnapshot current = snapshot.get();
+            // fails only if the snapshot was replaced and retired since it was read, the new one is tried then
+            if (current.acquire()){
+                return current;
+            }
+        }
+    }
+
+    /**
+     * Publishes the fractals generated into allFractals as the latest snapshot and retires the one before
+     * @param version   version of the parameters the fractals were generated with
+     */
+    private void publish(long version){
+        BitSet hidden = occlusionCulling ? rasterizer.findHidden(allFractals) : new BitSet();
+        snapshot.getAndSet(new FractalSnapshot(allFractals, version, hidden, this::recycle)).close();
+    }
+
+    /**
+     * Takes a buffer to generate into from the pool, or a new one if the pool is empty
+     * @return an empty buffer nobody else uses
+     */
+    private FractalBuffer takeBuffer(){
+        FractalBuffer buffer = bufferPool.poll();
+        if (buffer == null){
+            return new FractalBuffer();
+        }
+        pooledBuffers.decrementAndGet();
+        buffer.clear();
+        return buffer;
+    }
+
+    /**
+     * Puts the buffer of a retired snapshot back into the pool, unless the pool is full
+     * @param buffer    the buffer nobody uses anymore
+     */
+    private void recycle(FractalBuffer buffer){
+        if (pooledBuffers.incrementAndGet() <= BUFFER_POOL_SIZE){
+            bufferPool.offer(buffer);
+        } else {
+            pooledBuffers.decrementAndGet();
+        }
+    }
+
+    /**
+     * Draws the fractals as seen through the given viewport, generating only what is visible: a subtree is only
+     * descended into when its bounding circle is inside the view and its children pass the level of detail at the
+     * zoomed size. Nothing is stored, the fractals are drawn as they are generated, so memory and time depend on the
+     * size of the view and not on how far it is zoomed in. Coordinates are kept in doubles, so the fractals can be
+     * slightly off the ones drawn by draw, which rounds every center to a pixel. The view is the clip of the graphics
+     * object, or the given size if there is no clip. Counted in the metrics and recorded as a PaintEvent
+     * @param g         graphic object to be drawn on
+     * @param viewport  zoom and pan of the view
+     * @param width     width the whole cactus fits at the identity viewport
+     * @param height    height the whole cactus fits at the identity viewport
+     * @throws IllegalArgumentException if viewport is null
+     * @throws IllegalArgumentException if width or height is not positive
+     */
+    public void drawView(Graphics g, Viewport viewport, int width, int height){
+        if (viewport == null){
+            throw new IllegalArgumentException("Viewport cannot be null");
+        }
+        if (width <= 0 || height <= 0){
+            throw new IllegalArgumentException("Width and height must be bigger than 0");
+        }
+        Rectangle clip = g.getClipBounds();
+        Rectangle view = clip != null ? clip : new Rectangle(0, 0, width, height);
+        PaintEvent event = new PaintEvent();
+        event.begin();
+        long start = System.nanoTime();
+        int[] circles = new int[1];
+        LevelPalette colors = palette;
+        visitFractals(viewport.toViewX(width/2), viewport.toViewY(height - STARTING_RADIUS),
+                      STARTING_RADIUS * viewport.getScale(), view, this::isDetailVisible,
+                      (x, y, radius, depth, pear) -> {
+                          if (drawViewFractal(g, x, y, radius, colors.getColor(depth, pear), view)){
+                              circles[0]++;
+                          }
+                      });
+        recordPaint(event, "view", System.nanoTime() - start, circles[0]);
+    }
+
+    /**
+     * Draws the latest finished fractals scaled by the given factor and moved so the point (0, 0) of the generated
+     * fractals lands on the given point, for example one instance of a scene sharing these fractals with others
+     * (see CactusScene). Draws in runs of one palette entry like draw; when a clip is set, only the fractals the
+     * spatial index finds inside it are drawn. Counted in the metrics and recorded as a PaintEvent
+     * @param g     graphic object to be drawn on
+     * @param x     x coordinate the point (0, 0) of the fractals is drawn at
+     * @param y     y coordinate the point (0, 0) of the fractals is drawn at
+     * @param scale factor the fractals are scaled by
+     * @return the number of circles drawn
+     * @throws IllegalArgumentException if scale is not positive
+     */
+    public int drawInstance(Graphics g, double x, double y, double scale){
+        if (!(scale > 0)){
+            throw new IllegalArgumentException("Scale must be positive");
+        }
+        PaintEvent event = new PaintEvent();
+        event.begin();
+        long start = System.nanoTime();
+        int circles = 0;
+        LevelPalette colors = palette;
+        try (FractalSnapshot frame = acquireSnapshot()){
+            int[] levelEntries = colors.getLevelEntries(frame.getTopLevel());
+            // the hidden fractals were found at scale 1, scaled circles round differently and may show
+            ColorBatches batches = scale == 1 ? frame.getColorBatches(levelEntries)
+                                              : frame.getAllColorBatches(levelEntries);
+            Rectangle clip = g.getClipBounds();
+            FractalGrid grid = clip != null ? frame.getSpatialIndex() : null;
+            BitSet inClip = null;
+            Rectangle view = clip;
+            if (grid != null){
+                // the clip in the coordinates of the generated fractals, kept inside their bounds
+                Rectangle bounds = grid.getBounds();
+                double left = Math.max(bounds.x, Math.floor((clip.x - x) / scale));
+                double top = Math.max(bounds.y, Math.floor((clip.y - y) / scale));
+                double right = Math.min(bounds.x + bounds.width, Math.ceil((clip.x + clip.width - x) / scale));
+                double bottom = Math.min(bounds.y + bounds.height, Math.ceil((clip.y + clip.height - y) / scale));
+                if (right < left || bottom < top){
+                    recordPaint(event, "instance", System.nanoTime() - start, 0);
+                    return 0;
+                }
+                Rectangle area = new Rectangle((int)left, (int)top, (int)(right - left) + 1, (int)(bottom - top) + 1);
+                if (!area.contains(bounds)){
+                    IntArrayList visible = new IntArrayList();
+                    grid.query(area, visible);
+                    inClip = new BitSet(frame.size());
+                    for (int i = 0; i < visible.size(); i++){
+                        inClip.set(visible.get(i));
+                    }
+                }
+            } else {
+                view = new Rectangle(Integer.MIN_VALUE / 2, Integer.MIN_VALUE / 2, Integer.MAX_VALUE,
+                                     Integer.MAX_VALUE);
+            }
+            for (int run = 0; run < batches.getRuns(); run++){
+                Color color = colors.getColor(batches.getEntry(run));
+                for (int i = batches.getRunStart(run); i < batches.getRunEnd(run); i++){
+                    int index = batches.get(i);
+                    if (inClip != null && !inClip.get(index)){
+                        continue;
+                    }
+                    if (drawViewFractal(g, x + frame.getCenterX(index) * scale, y + frame.getCenterY(index) * scale,
+                                        frame.getRadius(index) * scale, color, view)){
+                        circles++;
+                    }
+                }
+            }
+        }
+        recordPaint(event, "instance", System.nanoTime() - start, circles);
+        return circles;
+    }
+
+    /**
+     * Generates the fractals with the current parameters and hands them to the visitor one by one in drawing order
+     * (right subtree, parent, left subtree) instead of storing them. Uses an explicit stack like generateFractals,
+     * but keeps the coordinates in doubles. Subtrees whose bounding circle is outside the view are skipped
+     * @param centerX       x coordinate of the main parent's center point
+     * @param centerY       y coordinate of the main parent's center point
+     * @param radius        radius of the main parent
+     * @param view          area the fractals must touch to be visited, null to visit all of them
+     * @param detailVisible decides from the radius of the children whether a parent's children are generated
+     * @param visitor       receives the fractals
+     */
+    public void visitFractals(double centerX, double centerY, double radius, Rectangle view,
+                              DoublePredicate detailVisible, FractalVisitor visitor){
+        double boundingScale = (1 + radiusRatio) / (1 - radiusRatio);
+        int stackSize = 2 * recursionDepth + 1;
+        int[] depths = new int[stackSize];
+        double[] radiuses = new double[stackSize];
+        double[] xs = new double[stackSize];
+        double[] ys = new double[stackSize];
+        double[] degrees = new double[stackSize];
+        int[] steps = new int[stackSize];
+        boolean[] expanded = new boolean[stackSize];
+        int top = 0;
+        depths[0] = recursionDepth;
+        radiuses[0] = radius;
+        xs[0] = centerX;
+        ys[0] = centerY;
+        degrees[0] = degree;
+        steps[0] = 1;
+        expanded[0] = false;
+        while (top >= 0){
+            int depth = depths[top];
+            double r = radiuses[top];
+            double x = xs[top];
+            double y = ys[top];
+            double d = degrees[top];
+            int step = steps[top];
+            boolean drawOnly = expanded[top];
+            top--;
+            if (drawOnly){
+                visitor.visit(x, y, r, recursionDepth - depth, false);
+                continue;
+            }
+            double bound = r * boundingScale;
+            if (view != null && (x + bound < view.x || y + bound < view.y || x - bound > view.x + view.width ||
+                                 y - bound > view.y + view.height)){
+                // the whole subtree is outside the view
+                continue;
+            }
+            double childRadius = r * radiusRatio;
+            if (depth == 1 || !detailVisible.test(childRadius)){
+                visitor.visit(x, y, r, recursionDepth - depth, true);
+                continue;
+            }
+            double distance = r + childRadius;
+            double leftDegree = d - degree*2;
+            top++;
+            depths[top] = depth - 1;
+            radiuses[top] = childRadius;
+            xs[top] = x + distance * angles.sin(step - 2, leftDegree);
+            ys[top] = y - distance * angles.cos(step - 2, leftDegree);
+            degrees[top] = d - degree;
+            steps[top] = step - 1;
+            expanded[top] = false;
+            top++;
+            depths[top] = depth;
+            radiuses[top] = r;
+            xs[top] = x;
+            ys[top] = y;
+            expanded[top] = true;
+            top++;
+            depths[top] = depth - 1;
+            radiuses[top] = childRadius;
+            xs[top] = x + distance * angles.sin(step, d);
+            ys[top] = y - distance * angles.cos(step, d);
+            degrees[top] = d + degree;
+            steps[top] = step + 1;
+            expanded[top] = false;
+        }
+    }
+
+    /**
+     * Draws one fractal of a view if it is inside the view. Fractals too big for drawOval are filled row by row
+     * @param g         graphic object to be drawn on
+     * @param x         x coordinate of the center point in the view
+     * @param y         y coordinate of the center point in the view
+     * @param radius    radius in the view
+     * @param color     color of the fractal
+     * @param view      area of the view
+     * @return true if the fractal was drawn, false if it is outside the view
+     */
+    private boolean drawViewFractal(Graphics g, double x, double y, double radius, Color color, Rectangle view){
+        int right = view.x + view.width;
+        int bottom = view.y + view.height;
+        if (x + radius < view.x || y + radius < view.y || x - radius > right || y - radius > bottom){
+            return false;
+        }
+        g.setColor(color);
+        if (radius <= MAX_OVAL_RADIUS){
+            int r = (int)radius;
+            int diameter = r * 2;
+            int left = (int)Math.floor(x) - r;
+            int top = (int)Math.floor(y) - r;
+            g.drawOval(left, top, diameter, diameter);
+            g.fillOval(left, top, diameter, diameter);
+            return true;
+        }
+        int firstRow = (int)Math.max(view.y, Math.ceil(y - radius));
+        int lastRow = (int)Math.min(bottom - 1, Math.floor(y + radius));
+        for (int row = firstRow; row <= lastRow; row++){
+            double dy = row - y;
+            double halfWidth = Math.sqrt((radius - dy) * (radius + dy));
+            int spanLeft = (int)Math.max(view.x, Math.floor(x - halfWidth));
+            int spanRight = (int)Math.min(right, Math.ceil(x + halfWidth));
+            if (spanLeft < spanRight){
+                g.fillRect(spanLeft, row, spanRight - spanLeft, 1);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Retrieves the spatial index over the latest finished fractals, building it first if needed
+     * @return the grid over the latest fractals, valid until the next generation retires them; acquire a snapshot
+     *         to keep them longer
+     */
+    public FractalGrid getSpatialIndex(){
+        try (FractalSnapshot frame = acquireSnapshot()){
+            return frame.getSpatialIndex();
+        }
+    }
+
+    /**
+     * Finds the top-most fractal drawn at the given point, for example the branch under the cursor
+     * @param x x coordinate of the point
+     * @param y y coordinate of the point
+     * @return the index of the fractal in getFractals, -1 if there is no fractal at the point
+     */
+    public int findFractal(int x, int y){
+        try (FractalSnapshot frame = acquireSnapshot()){
+            return frame.getSpatialIndex().find(x, y);
+        }
+    }
+
+    /**
+     * Retrieves the latest finished fractals, which must not be changed
+     * @return the center points, radiuses and levels of the latest fractals, valid until the next generation
+     *         retires them; acquire a snapshot to keep them longer
+     */
+    public FractalBuffer getFractals(){
+        try (FractalSnapshot frame = acquireSnapshot()){
+            return frame.getBuffer();
         }
     }
     
+    /**
+     * Saves the generated fractals with the parameters they were generated with, so they can be loaded instead of
+     * generated again. The file has a header (magic number, format version, number of fractals, recursion depth,
+     * panel size, trigonometry mode, radius ratio, degree, main parent's radius and level of detail) followed by
+     * the fractals as packed columns of primitives, written through memory mapping
+     * @param file  the file to write
+     * @throws IOException if the file cannot be written or the fractals do not fit a file
+     * @throws IllegalStateException if no fractals were generated yet
+     */
+    public synchronized void saveGeometry(Path file) throws IOException{
+        if (!generated){
+            throw new IllegalStateException("No fractals were generated yet");
+        }
+        // generations wait for this method, so the published fractals stay the same while they are written
+        FractalBuffer published = snapshot.get().getBuffer();
+        long fileSize = GEOMETRY_HEADER_BYTES + FractalBuffer.getStoredSize(published.size());
+        if (fileSize > Integer.MAX_VALUE){
+            throw new IOException("Too many fractals for one geometry file: " + published.size());
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                                                    StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)){
+            MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_WRITE, 0, fileSize);
+            mapped.putInt(GEOMETRY_MAGIC).putInt(GEOMETRY_VERSION).putInt(published.size())
+                  .putInt(generatedDepth).putInt(generatedWidth).putInt(generatedHeight)
+                  .putInt(exactTrigonometry ? 1 : 0);
+            mapped.putDouble(generatedRatio).putDouble(generatedDegree).putDouble(generatedRadius)
+                  .putDouble(generatedMinSubtreeSize);
+            published.store(mapped);
+            mapped.force();
+        }
+    }
+
+    /**
+     * Loads fractals saved by saveGeometry and takes over the parameters they were generated with, the colors are
+     * kept. The file is read through memory mapping straight into the fractal arrays and published as a new
+     * snapshot, so the fractals can be drawn right away, and getData with the saved size and radius does not
+     * generate them again
+     * @param file  the file to read
+     * @throws IOException if the file cannot be read, is not a geometry file, has another format version or is
+     *                     corrupt
+     */
+    public void loadGeometry(Path file) throws IOException{
+        synchronized (this){
+            loadGeometryFile(file);
+        }
+        notifyAllObservers();
+    }
+
+    /**
+     * Loads fractals saved by saveGeometry and publishes them, see loadGeometry
+     * @param file  the file to read
+     * @throws IOException if the file cannot be read, is not a geometry file, has another format version or is
+     *                     corrupt
+     */
+    private void loadGeometryFile(Path file) throws IOException{
+        GenerationEvent event = new GenerationEvent();
+        event.begin();
+        long start = System.nanoTime();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)){
+            if (channel.size() < GEOMETRY_HEADER_BYTES || channel.size() > Integer.MAX_VALUE){
+                throw new IOException("Not a geometry file: " + file);
+            }
+            MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (mapped.getInt() != GEOMETRY_MAGIC){
+                throw new IOException("Not a geometry file: " + file);
+            }
+            int version = mapped.getInt();
+            if (version != GEOMETRY_VERSION){
+                throw new IOException("Unsupported geometry file version " + version + ": " + file);
+            }
+            int count = mapped.getInt();
+            int depth = mapped.getInt();
+            int width = mapped.getInt();
+            int height = mapped.getInt();
+            boolean exact = mapped.getInt() != 0;
+            double ratio = mapped.getDouble();
+            double childDegree = mapped.getDouble();
+            double startingRadius = mapped.getDouble();
+            double subtreeSize = mapped.getDouble();
+            // a complete tree always has 2^levels - 1 fractals
+            if (count <= 0 || (count & (count + 1)) != 0 || depth < MIN_RECURSION_DEPTH ||
+                depth > MAX_RECURSION_DEPTH || width <= 0 || height <= 0 || !(startingRadius >= 1) ||
+                !(ratio >= 0.4 && ratio <= 0.7) || !(subtreeSize >= 0) ||
+                channel.size() != GEOMETRY_HEADER_BYTES + FractalBuffer.getStoredSize(count)){
+                throw new IOException("Corrupt geometry file: " + file);
+            }
+            FractalBuffer loaded = takeBuffer();
+            try {
+                loaded.load(mapped, count);
+            } catch (IllegalArgumentException e){
+                recycle(loaded);
+                throw new IOException("Corrupt geometry file: " + file, e);
+            }
+            if (exact != exactTrigonometry){
+                exactTrigonometry = exact;
+                geometryCache.clear();
+            }
+            if (exact != angles.isExact() || childDegree != degree){
+                angles = new AngleKernel(childDegree, MAX_RECURSION_DEPTH, exactTrigonometry);
+            }
+            recursionDepth = depth;
+            radiusRatio = ratio;
+            degree = childDegree;
+            minSubtreeSize = subtreeSize;
+            parameterVersion++;
+            allFractals = loaded;
+            publish(parameterVersion);
+            generated = true;
+            generatedLevels = 32 - Integer.numberOfLeadingZeros(count);
+            generatedDepth = depth;
+            generatedWidth = width;
+            generatedHeight = height;
+            generatedRadius = startingRadius;
+            generatedRatio = ratio;
+            generatedDegree = childDegree;
+            generatedMinSubtreeSize = subtreeSize;
+        }
+        recordGeneration(event, "loaded", System.nanoTime() - start, allFractals.size());
+    }
+
+    /**
+     * Sets the level of detail: a subtree whose bounding circle is smaller than the given size is not descended
+     * into, its parent is drawn as the last level instead. Keeps the number of fractals bounded by the size of the
+     * output rather than by the recursion depth
+     * @param minSubtreeSize    size in pixels (diameter of the bounding circle)
+     * @throws IllegalArgumentException if the size is negative
+     */
+    public void setMinSubtreeSize(double minSubtreeSize){
+        if (minSubtreeSize < 0){
+            throw new IllegalArgumentException("Minimum subtree size cannot be negative");
+        }
+        if (minSubtreeSize != this.minSubtreeSize){
+            geometryChanges++;
+        }
+        synchronized (this){
+            if (minSubtreeSize != this.minSubtreeSize){
+                parameterVersion++;
+            }
+            this.minSubtreeSize = minSubtreeSize;
+        }
+    }
+
+    /**
+     * Retrieves the version of the parameters, which changes every time a parameter affecting the drawing changes,
+     * so observers can tell whether what they rendered before is still up to date
+     * @return the version of the parameters
+     */
+    public long getParameterVersion(){
+        return parameterVersion;
+    }
+
+    /**
+     * Retrieves the size in pixels under which a subtree's bounding circle is not descended into
+     * @return the minimum subtree size
+     */
+    public double getMinSubtreeSize(){
+        return minSubtreeSize;
+    }
+
+    /**
+     * Chooses how the directions of the children are computed. Exact trigonometry gives the same fractals as calling
+     * Math.sin and Math.cos for every fractal; fast trigonometry composes the rotations of one child degree once and
+     * only looks them up, which can move a fractal by a pixel
+     * @param exactTrigonometry true for exact trigonometry, false for fast
+     */
+    public void setExactTrigonometry(boolean exactTrigonometry){
+        if (exactTrigonometry != this.exactTrigonometry){
+            geometryChanges++;
+        }
+        synchronized (this){
+            if (exactTrigonometry != this.exactTrigonometry){
+                this.exactTrigonometry = exactTrigonometry;
+                angles = new AngleKernel(degree, MAX_RECURSION_DEPTH, exactTrigonometry);
+                generated = false;
+                geometryCache.clear();
+                parameterVersion++;
+            }
+        }
+    }
+
+    /**
+     * Checks if the directions of the children are computed exactly like Math.sin and Math.cos
+     * @return true for exact trigonometry, false for fast
+     */
+    public boolean isExactTrigonometry(){
+        return exactTrigonometry;
+    }
+
+    /**
+     * Turns the occlusion pass on or off. After each generation the pass finds the fractals completely covered by
+     * fractals drawn after them, which draw and drawRaster then leave out without changing the picture. The pass
+     * takes longer than it saves for most pictures, so it is off by default. Takes effect at the next call to
+     * getData
+     * @param occlusionCulling true to leave out covered fractals, false to draw every fractal
+     */
+    public void setOcclusionCulling(boolean occlusionCulling){
+        if (occlusionCulling != this.occlusionCulling){
+            this.occlusionCulling = occlusionCulling;
+            generated = false;
+        }
+    }
+
+    /**
+     * Checks if fractals completely covered by fractals drawn after them are left out when drawing
+     * @return true if covered fractals are left out, false otherwise
+     */
+    public boolean isOcclusionCulling(){
+        return occlusionCulling;
+    }
+
+    /**
+     * Retrieves the cache of recently generated fractals, to read its counters or change its size
+     * @return the geometry cache
+     */
+    public GeometryCache getGeometryCache(){
+        return geometryCache;
+    }
+
+    /**
+     * Retrieves the counts of the generations, paintings and dropped frames, with the time of the last ones
+     * @return the metrics, which can also be registered as an MBean
+     */
+    public RenderMetrics getMetrics(){
+        return metrics;
+    }
+
+    /**
+     * Turns parallel generation on or off. Parallel generation produces exactly the same fractals in the same order
+     * @param parallel true to generate the subtrees in parallel, false to generate them sequentially
+     */
+    public void setParallel(boolean parallel){
+        this.parallel = parallel;
+    }
+
+    /**
+     * Checks if the subtrees are generated in parallel
+     * @return true if the subtrees are generated in parallel, false otherwise
+     */
+    public boolean isParallel(){
+        return parallel;
+    }
+
+    /**
+     * Sets the recursion depth at or below which parallel generation stops splitting the subtrees into tasks
+     * @param parallelCutoffDepth   the cutoff depth, subtrees this deep or shallower are generated sequentially
+     * @throws IllegalArgumentException if the cutoff depth is less than 1
+     */
+    public void setParallelCutoffDepth(int parallelCutoffDepth){
+        if (parallelCutoffDepth < 1){
+            throw new IllegalArgumentException("Parallel cutoff depth must be positive");
+        }
+        this.parallelCutoffDepth = parallelCutoffDepth;
+    }
+
+    /**
+     * Retrieves the recursion depth at or below which parallel generation stops splitting the subtrees
+     * @return the parallel cutoff depth
+     */
+    public int getParallelCutoffDepth(){
+        return parallelCutoffDepth;
+    }
+
     /**
      * Retrieves the recursion depth
      * @return the recursion depth (levels) of the fractals
@@ -182,7 +1391,7 @@ public class GenerateFractal implements Subject{
      * @return the color of the cactus
      */
     public Color getCactusColor(){
-        return cactusColor;
+        return palette.getCactusColor();
     }
     
     /**
@@ -190,32 +1399,159 @@ public class GenerateFractal implements Subject{
      * @return the color of the pear part of the cactus
      */
     public Color getPearColor(){
-        return pearColor;
+        return palette.getPearColor();
+    }
+
+    /**
+     * Retrieves the colors of the levels of the cactus and of the pear
+     * @return the palette
+     */
+    public LevelPalette getPalette(){
+        return palette;
     }
     
     
     /**
-     * Adds an observer to the observer list
+     * Adds an observer to the observer list. The list is copied on every change, so notifying never waits for an
+     * observer being attached or detached
      * @param observer  observer to be added to the list
+     * @throws IllegalArgumentException if observer is null
      */
     public void attach(Observer observer){
-        observers.add(observer);  
+        if (observer == null){
+            throw new IllegalArgumentException("Observer cannot be null");
+        }
+        synchronized (observersLock){
+            Mailbox[] attached = Arrays.copyOf(observers, observers.length + 1);
+            attached[observers.length] = new Mailbox(observer, notifications.get(), metrics);
+            observers = attached;
+        }
     }
     
     /**
-     * Deletes an observer from the observer list
+     * Deletes an observer from the observer list, notifications waiting for it are dropped. Does nothing if the
+     * observer is not attached
      * @param observer  observer to be deleted from the list
      */
     public void detach(Observer observer){
-        observers.remove(observers.indexOf(observer));
+        synchronized (observersLock){
+            Mailbox[] attached = observers;
+            for (int i = 0; i < attached.length; i++){
+                if (attached[i].observer == observer){
+                    attached[i].detached = true;
+                    Mailbox[] left = new Mailbox[attached.length - 1];
+                    System.arraycopy(attached, 0, left, 0, i);
+                    System.arraycopy(attached, i + 1, left, i, attached.length - i - 1);
+                    observers = left;
+                    return;
+                }
+            }
+        }
     }
     
     /**
-     * Notifies all observers of a data update
+     * Notifies all observers of a data update. Without a notification executor every observer is updated right away
+     * on the caller's thread. With one, the update is only posted to every observer's mailbox and the caller goes on:
+     * an observer has at most one update waiting or running, and updates posted meanwhile are merged into it, so a
+     * slow observer skips the states it would be too late for and only sees the latest one
      */
     public void notifyAllObservers(){
-        for (Observer oneObserver : observers){
-            oneObserver.update();
+        long notification = notifications.incrementAndGet();
+        Executor executor = notificationExecutor;
+        for (Mailbox mailbox : observers){
+            if (executor == null){
+                mailbox.observer.update();
+            } else {
+                mailbox.post(notification, executor);
+            }
+        }
+    }
+
+    /**
+     * Chooses where the observers are notified. For observers that are Swing components, SwingUtilities::invokeLater
+     * notifies them on the event dispatch thread
+     * @param executor  runs the notifications, null to notify the observers on the caller's thread
+     */
+    public void setNotificationExecutor(Executor executor){
+        this.notificationExecutor = executor;
+    }
+
+    /**
+     * Retrieves where the observers are notified
+     * @return the executor running the notifications, null if the observers are notified on the caller's thread
+     */
+    public Executor getNotificationExecutor(){
+        return notificationExecutor;
+    }
+
+    /**
+     * Single slot mailbox of one observer: holds the number of the latest notification posted to the observer and
+     * whether an update of the observer is already waiting or running
+     */
+    private static class Mailbox{
+        /** the observer */
+        private final Observer observer;
+        /** number of the latest notification posted */
+        private final AtomicLong latest;
+        /** whether an update is waiting or running */
+        private final AtomicBoolean scheduled;
+        /** number of the latest notification the observer was updated for, only used by the running update */
+        private long delivered;
+        /** set once the observer is detached, so waiting updates are dropped */
+        private volatile boolean detached;
+        /** counts the notifications the observer was never updated for as dropped frames */
+        private final RenderMetrics metrics;
+
+        /**
+         * Creates an empty mailbox for the given observer
+         * @param observer  the observer
+         * @param attached  number of the latest notification when the observer is attached
+         * @param metrics   counts the dropped frames
+         */
+        Mailbox(Observer observer, long attached, RenderMetrics metrics){
+            this.observer = observer;
+            this.latest = new AtomicLong(attached);
+            this.scheduled = new AtomicBoolean();
+            this.delivered = attached;
+            this.metrics = metrics;
+        }
+
+        /**
+         * Posts a notification, scheduling an update of the observer unless one is already waiting
+         * @param notification  number of the notification
+         * @param executor      runs the update
+         */
+        void post(long notification, Executor executor){
+            latest.accumulateAndGet(notification, Math::max);
+            if (scheduled.compareAndSet(false, true)){
+                executor.execute(this::deliver);
+            }
+        }
+
+        /**
+         * Updates the observer for the latest notification, unless it was already updated for it, and again as long
+         * as new notifications came in meanwhile
+         */
+        private void deliver(){
+            while (true){
+                long notification = latest.get();
+                if (!detached && notification != delivered){
+                    // the notifications in between were coalesced into this update and never shown on their own
+                    metrics.recordDroppedFrames(notification - delivered - 1);
+                    delivered = notification;
+                    try {
+                        observer.update();
+                    } catch (RuntimeException | Error e){
+                        scheduled.set(false);
+                        throw e;
+                    }
+                }
+                scheduled.set(false);
+                // a notification posted while the observer updated found the update still running and left it to us
+                if (detached || latest.get() == delivered || !scheduled.compareAndSet(false, true)){
+                    return;
+                }
+            }
         }
     }
 }
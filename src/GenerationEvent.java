@@ -0,0 +1,36 @@
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Flight recorder event of one generation of the fractals, from the call of getData until the new fractals are
+ * published. Costs next to nothing while no recording is running
+ *
+ * @author Iulia Bejsovec
+ * @version 10/2026
+ */
+@Name("opuntia.Generation")
+@Label("Fractal Generation")
+@Category("OpuntiaFractal")
+@Description("Generation of the fractals of the cactus")
+public class GenerationEvent extends Event{
+    /** how the fractals were made: generated, incremental, cached or loaded */
+    @Label("Source")
+    @Description("Generated, incremental (only the recursion depth changed), cached or loaded from a file")
+    public String source;
+    /** number of fractals made */
+    @Label("Fractals")
+    public int fractals;
+    /** recursion depth the fractals were made with */
+    @Label("Recursion Depth")
+    public int recursionDepth;
+    /** number of levels made, less than the depth when cut by the level of detail */
+    @Label("Levels")
+    public int levels;
+    /** number of fractals the occlusion pass found completely covered */
+    @Label("Hidden")
+    @Description("Fractals completely covered by fractals drawn after them, left out when drawing")
+    public int hidden;
+}
@@ -0,0 +1,230 @@
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Bounded cache of generated fractals, so going back to a recently used setting is a copy instead of a generation.
+ * The cache is limited by the memory taken by the stored fractals and evicts the least recently used ones first.
+ * Keeps count of hits, misses and evictions
+ *
+ * @author Iulia Bejsovec
+ * @version 10/2026
+ */
+public class GeometryCache{
+    /** cached fractals, in the order from least to most recently used */
+    private LinkedHashMap<Key, FractalBuffer> entries;
+    /** most bytes the cached fractals may take */
+    private long maxBytes;
+    /** bytes taken by the cached fractals */
+    private long bytes;
+    /** number of lookups that found the fractals */
+    private long hits;
+    /** number of lookups that did not find the fractals */
+    private long misses;
+    /** number of entries evicted to make room */
+    private long evictions;
+
+    /**
+     * Creates an empty cache of the given size
+     * @param maxBytes  most bytes the cached fractals may take, 0 turns the cache off
+     * @throws IllegalArgumentException if maxBytes is negative
+     */
+    public GeometryCache(long maxBytes){
+        if (maxBytes < 0){
+            throw new IllegalArgumentException("Cache size cannot be negative");
+        }
+        this.maxBytes = maxBytes;
+        entries = new LinkedHashMap<>(16, 0.75f, true);
+    }
+
+    /**
+     * Looks up the fractals for the given key and copies them into the target buffer
+     * @param key       parameters the fractals were generated with
+     * @param target    buffer the fractals are copied into
+     * @return true if the fractals were found, false otherwise
+     */
+    public synchronized boolean get(Key key, FractalBuffer target){
+        FractalBuffer cached = entries.get(key);
+        if (cached == null){
+            misses++;
+            return false;
+        }
+        hits++;
+        target.copyFrom(cached);
+        return true;
+    }
+
+    /**
+     * Stores a copy of the given fractals, evicting the least recently used entries if there is not enough room.
+     * Fractals bigger than the whole cache are not stored
+     * @param key       parameters the fractals were generated with
+     * @param fractals  the generated fractals
+     */
+    public synchronized void put(Key key, FractalBuffer fractals){
+        long size = fractals.getMemorySize();
+        if (size > maxBytes){
+            return;
+        }
+        FractalBuffer old = entries.remove(key);
+        if (old != null){
+            bytes -= old.getMemorySize();
+        }
+        Iterator<Map.Entry<Key, FractalBuffer>> leastRecent = entries.entrySet().iterator();
+        while (bytes + size > maxBytes && leastRecent.hasNext()){
+            bytes -= leastRecent.next().getValue().getMemorySize();
+            leastRecent.remove();
+            evictions++;
+        }
+        entries.put(key, new FractalBuffer(fractals));
+        bytes += size;
+    }
+
+    /**
+     * Removes all cached fractals, the counters are kept
+     */
+    public synchronized void clear(){
+        entries.clear();
+        bytes = 0;
+    }
+
+    /**
+     * Changes the most bytes the cached fractals may take, evicting entries if they do not fit anymore
+     * @param maxBytes  most bytes the cached fractals may take, 0 turns the cache off
+     * @throws IllegalArgumentException if maxBytes is negative
+     */
+    public synchronized void setMaxBytes(long maxBytes){
+        if (maxBytes < 0){
+            throw new IllegalArgumentException("Cache size cannot be negative");
+        }
+        this.maxBytes = maxBytes;
+        Iterator<Map.Entry<Key, FractalBuffer>> leastRecent = entries.entrySet().iterator();
+        while (bytes > maxBytes && leastRecent.hasNext()){
+            bytes -= leastRecent.next().getValue().getMemorySize();
+            leastRecent.remove();
+            evictions++;
+        }
+    }
+
+    /**
+     * Retrieves the most bytes the cached fractals may take
+     * @return the size limit of the cache in bytes
+     */
+    public synchronized long getMaxBytes(){
+        return maxBytes;
+    }
+
+    /**
+     * Retrieves the bytes taken by the cached fractals
+     * @return the used size of the cache in bytes
+     */
+    public synchronized long getBytes(){
+        return bytes;
+    }
+
+    /**
+     * Retrieves the number of cached entries
+     * @return the number of cached entries
+     */
+    public synchronized int size(){
+        return entries.size();
+    }
+
+    /**
+     * Retrieves the number of lookups that found the fractals
+     * @return the number of hits
+     */
+    public synchronized long getHits(){
+        return hits;
+    }
+
+    /**
+     * Retrieves the number of lookups that did not find the fractals
+     * @return the number of misses
+     */
+    public synchronized long getMisses(){
+        return misses;
+    }
+
+    /**
+     * Retrieves the number of entries evicted to make room
+     * @return the number of evictions
+     */
+    public synchronized long getEvictions(){
+        return evictions;
+    }
+
+    /**
+     * Parameters that decide the generated fractals: depth, radius ratio, degree, panel size, main parent's radius
+     * and level of detail
+     */
+    public static class Key{
+        /** recursion depth */
+        private int depth;
+        /** ratio of child radius to parent's radius */
+        private double radiusRatio;
+        /** degree of the position of the child to the parent */
+        private double degree;
+        /** width of the panel */
+        private int width;
+        /** height of the panel */
+        private int height;
+        /** main parent's radius */
+        private double startingRadius;
+        /** size in pixels under which a subtree is not descended into */
+        private double minSubtreeSize;
+
+        /**
+         * Creates the key from the given parameters
+         * @param depth             recursion depth
+         * @param radiusRatio       ratio of child radius to parent's radius
+         * @param degree            degree of the position of the child to the parent
+         * @param width             width of the panel
+         * @param height            height of the panel
+         * @param startingRadius    main parent's radius
+         * @param minSubtreeSize    size in pixels under which a subtree is not descended into
+         */
+        public Key(int depth, double radiusRatio, double degree, int width, int height, double startingRadius,
+                   double minSubtreeSize){
+            this.depth = depth;
+            this.radiusRatio = radiusRatio;
+            this.degree = degree;
+            this.width = width;
+            this.height = height;
+            this.startingRadius = startingRadius;
+            this.minSubtreeSize = minSubtreeSize;
+        }
+
+        /**
+         * Checks if the other object is a key with the same parameters
+         * @param other the object to compare with
+         * @return true if the other object is an equal key, false otherwise
+         */
+        @Override
+        public boolean equals(Object other){
+            if (!(other instanceof Key)){
+                return false;
+            }
+            Key key = (Key)other;
+            return depth == key.depth && width == key.width && height == key.height &&
+                   Double.compare(radiusRatio, key.radiusRatio) == 0 && Double.compare(degree, key.degree) == 0 &&
+                   Double.compare(startingRadius, key.startingRadius) == 0 &&
+                   Double.compare(minSubtreeSize, key.minSubtreeSize) == 0;
+        }
+
+        /**
+         * Calculates the hash code from all the parameters
+         * @return the hash code of the key
+         */
+        @Override
+        public int hashCode(){
+            int result = depth;
+            result = 31 * result + Double.hashCode(radiusRatio);
+            result = 31 * result + Double.hashCode(degree);
+            result = 31 * result + width;
+            result = 31 * result + height;
+            result = 31 * result + Double.hashCode(startingRadius);
+            result = 31 * result + Double.hashCode(minSubtreeSize);
+            return result;
+        }
+    }
+}
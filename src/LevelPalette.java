@@ -0,0 +1,182 @@
+import java.awt.Color;
+import java.util.Arrays;
+
+/**
+ * Colors of the fractals by level: one color for the pears (last level) and one color for every level of the cactus
+ * counted from the main parent, the last cactus color being used for all the levels below it. Every color is one
+ * entry of the palette, so the fractals can be drawn grouped by entry. Immutable
+ *
+ * @author Iulia Bejsovec
+ * @version 10/2026
+ */
+public class LevelPalette{
+    /** index of the entry of the pears */
+    public static final int PEAR_ENTRY = 0;
+    /** color of the pears */
+    private final Color pearColor;
+    /** colors of the cactus, the first one for the main parent */
+    private final Color[] cactusColors;
+
+    /**
+     * Creates a palette with the given colors
+     * @param pearColor     color of the pears (last level)
+     * @param cactusColors  colors of the levels of the cactus, the first one for the main parent and the last one
+     *                      for all the levels below it
+     * @throws IllegalArgumentException if a color is null or no cactus color is given
+     */
+    public LevelPalette(Color pearColor, Color... cactusColors){
+        if (pearColor == null || cactusColors == null || Arrays.asList(cactusColors).contains(null)){
+            throw new IllegalArgumentException("Color cannot be null");
+        }
+        if (cactusColors.length == 0){
+            throw new IllegalArgumentException("Palette needs at least one cactus color");
+        }
+        this.pearColor = pearColor;
+        this.cactusColors = cactusColors.clone();
+    }
+
+    /**
+     * Creates a palette fading the cactus from the color of the main parent to the tip color at the last level
+     * before the pears
+     * @param cactusColor       color of the main parent
+     * @param tipColor          color of the cactus just above the pears
+     * @param pearColor         color of the pears
+     * @param recursionDepth    depth of recursion of fractals, at least 2
+     * @return the palette
+     * @throws IllegalArgumentException if a color is null or the recursion depth is less than 2
+     */
+    public static LevelPalette gradient(Color cactusColor, Color tipColor, Color pearColor, int recursionDepth){
+        if (cactusColor == null || tipColor == null){
+            throw new IllegalArgumentException("Color cannot be null");
+        }
+        if (recursionDepth < 2){
+            throw new IllegalArgumentException("Recursion depth must be at least 2");
+        }
+        Color[] colors = new Color[recursionDepth - 1];
+        for (int i = 0; i < colors.length; i++){
+            double weight = colors.length == 1 ? 0 : (double)i / (colors.length - 1);
+            colors[i] = new Color(mix(cactusColor.getRed(), tipColor.getRed(), weight),
+                                  mix(cactusColor.getGreen(), tipColor.getGreen(), weight),
+                                  mix(cactusColor.getBlue(), tipColor.getBlue(), weight),
+                                  mix(cactusColor.getAlpha(), tipColor.getAlpha(), weight));
+        }
+        return new LevelPalette(pearColor, colors);
+    }
+
+    /**
+     * Mixes two color components
+     * @param from      component at weight 0
+     * @param to        component at weight 1
+     * @param weight    weight of the second component, 0 to 1
+     * @return the mixed component
+     */
+    private static int mix(int from, int to, double weight){
+        return (int)Math.round(from + (to - from) * weight);
+    }
+
+    /**
+     * Returns the number of entries: the pears and every cactus color
+     * @return the number of entries
+     */
+    public int size(){
+        return cactusColors.length + 1;
+    }
+
+    /**
+     * Finds the entry of a fractal
+     * @param depth number of levels between the fractal and the main parent, 0 for the main parent
+     * @param pear  true for the last level (pear), false for the cactus
+     * @return the index of its entry
+     */
+    public int getEntry(int depth, boolean pear){
+        return pear ? PEAR_ENTRY : 1 + Math.min(depth, cactusColors.length - 1);
+    }
+
+    /**
+     * Retrieves the color of an entry
+     * @param entry the index of the entry
+     * @return the color of the entry
+     * @throws IndexOutOfBoundsException if the entry is not in the palette
+     */
+    public Color getColor(int entry){
+        if (entry < 0 || entry >= size()){
+            throw new IndexOutOfBoundsException("entry: " + entry);
+        }
+        return entry == PEAR_ENTRY ? pearColor : cactusColors[entry - 1];
+    }
+
+    /**
+     * Retrieves the color of a fractal
+     * @param depth number of levels between the fractal and the main parent, 0 for the main parent
+     * @param pear  true for the last level (pear), false for the cactus
+     * @return the color of the fractal
+     */
+    public Color getColor(int depth, boolean pear){
+        return getColor(getEntry(depth, pear));
+    }
+
+    /**
+     * Finds the entries of the levels of stored fractals, where level 1 is the pears and the levels count down from
+     * the level of the main parent
+     * @param topLevel  level of the main parent
+     * @return the entry of every level, indexed by the level
+     */
+    public int[] getLevelEntries(int topLevel){
+        int[] entries = new int[topLevel + 1];
+        for (int level = 1; level <= topLevel; level++){
+            entries[level] = getEntry(topLevel - level, level == 1);
+        }
+        return entries;
+    }
+
+    /**
+     * Retrieves all the colors, indexed by entry
+     * @return a copy of the colors
+     */
+    public Color[] getColors(){
+        Color[] colors = new Color[size()];
+        for (int i = 0; i < colors.length; i++){
+            colors[i] = getColor(i);
+        }
+        return colors;
+    }
+
+    /**
+     * Retrieves the color of the pears
+     * @return the color of the pears
+     */
+    public Color getPearColor(){
+        return pearColor;
+    }
+
+    /**
+     * Retrieves the color of the main parent
+     * @return the color of the main parent
+     */
+    public Color getCactusColor(){
+        return cactusColors[0];
+    }
+
+    /**
+     * Checks if the other object is a palette with the same colors
+     * @param other the object to compare to
+     * @return true if it has the same colors, false otherwise
+     */
+    @Override
+    public boolean equals(Object other){
+        if (!(other instanceof LevelPalette)){
+            return false;
+        }
+        LevelPalette palette = (LevelPalette)other;
+        return pearColor.equals(palette.pearColor) && Arrays.equals(cactusColors, palette.cactusColors);
+    }
+
+    /**
+     * Computes a hash code from the colors
+     * @return the hash code
+     */
+    @Override
+    public int hashCode(){
+        return 31 * pearColor.hashCode() + Arrays.hashCode(cactusColors);
+    }
+}
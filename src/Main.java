@@ -1,3 +1,6 @@
+import javax.management.JMException;
+import javax.swing.SwingUtilities;
+
 /**
  * Entry to the program, creates the GUI, a Display to draw the fractals and generates all fractals to be drawn with
  * the data from GUI. Created using MVC and Observer patterns
@@ -8,13 +11,27 @@
 public class Main{
     /**
      * Creates the GUI, Display to draw the fractals and generates all fractals to be drawn with the data from GUI.
-     * Attaches the observer(s) to the subject
+     * Attaches the observer(s) to the subject, notified on the event dispatch thread after the controller is done,
+     * so a burst of changes leads to one update. The render metrics are registered as an MBean, so they can be watched
+     * with JConsole. With arguments, renders the fractals into a PNG file without any
+     * window instead (see BatchRenderer)
      * @param args  possible arguments
      */
     public static void main(String[] args){
+        if (args.length > 0){
+            BatchRenderer.main(args);
+            return;
+        }
         GenerateFractal fractalData = new GenerateFractal();
+        fractalData.setNotificationExecutor(SwingUtilities::invokeLater);
+        try {
+            fractalData.getMetrics().register(RenderMetrics.DEFAULT_NAME);
+        } catch (JMException e){
+            System.err.println("Could not register the render metrics: " + e.getMessage());
+        }
         GUI gui = new GUI(fractalData);
         Display display = new Display(fractalData);
         fractalData.attach(display);
+        gui.setPreviewDisplay(display);
     }
 }
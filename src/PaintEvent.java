@@ -0,0 +1,31 @@
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Flight recorder event of one painting of the fractals on a graphics object. Costs next to nothing while no
+ * recording is running
+ *
+ * @author Iulia Bejsovec
+ * @version 10/2026
+ */
+@Name("opuntia.Paint")
+@Label("Fractal Paint")
+@Category("OpuntiaFractal")
+@Description("Painting of the fractals of the cactus")
+public class PaintEvent extends Event{
+    /**
+     * how the fractals were painted: snapshot or raster for the generated fractals, view for a zoomed view, instance
+     * for them scaled and moved as one instance of a scene
+     */
+    @Label("Mode")
+    @Description("Snapshot for the generated fractals drawn with Graphics, raster for them drawn straight into the " +
+                 "pixels, view for a zoomed or moved view generated while painted, instance for them scaled and " +
+                 "moved as one instance of a scene")
+    public String mode;
+    /** number of circles painted */
+    @Label("Circles")
+    public int circles;
+}
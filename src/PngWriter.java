@@ -0,0 +1,211 @@
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+
+/**
+ * Writes an RGB PNG image row by row, compressing the rows as they come in, so images far bigger than the heap can
+ * be written as long as the rows are produced in order
+ *
+ * @author Iulia Bejsovec
+ * @version 10/2026
+ */
+public class PngWriter implements AutoCloseable{
+    /** signature every PNG file starts with */
+    private static final byte[] SIGNATURE = {(byte)0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n'};
+    /** size of the compressed data kept before it is written out as one chunk */
+    private static final int CHUNK_SIZE = 1 << 16;
+    /** stream the image is written to */
+    private OutputStream out;
+    /** compresses the rows, ended when the writer is closed as the stream does not end a deflater it was given */
+    private Deflater deflater;
+    /** compresses the rows into image data chunks */
+    private DeflaterOutputStream imageData;
+    /** width of the image in pixels */
+    private int width;
+    /** height of the image in pixels */
+    private int height;
+    /** number of rows written so far */
+    private int rowsWritten;
+    /** one row in PNG layout: filter type followed by red, green and blue of every pixel */
+    private byte[] row;
+
+    /**
+     * Creates the writer and writes the PNG header for an image of the given size
+     * @param out       stream the image is written to
+     * @param width     width of the image in pixels
+     * @param height    height of the image in pixels
+     * @throws IOException if writing to the stream fails
+     * @throws IllegalArgumentException if the stream is null
+     * @throws IllegalArgumentException if width or height is not positive, or a row would not fit an array
+     */
+    public PngWriter(OutputStream out, int width, int height) throws IOException{
+        if (out == null){
+            throw new IllegalArgumentException("Output stream cannot be null");
+        }
+        if (width <= 0 || height <= 0 || width > (Integer.MAX_VALUE - 1) / 3){
+            throw new IllegalArgumentException("Illegal image size: " + width + "x" + height);
+        }
+        this.out = out;
+        this.width = width;
+        this.height = height;
+        row = new byte[1 + width * 3];
+        out.write(SIGNATURE);
+        byte[] header = new byte[13];
+        writeInt(header, 0, width);
+        writeInt(header, 4, height);
+        header[8] = 8;  // bits per sample
+        header[9] = 2;  // color type: RGB
+        writeChunk("IHDR", header, header.length);
+        deflater = new Deflater(Deflater.BEST_SPEED);
+        imageData = new DeflaterOutputStream(new ChunkOutputStream(), deflater, CHUNK_SIZE);
+    }
+
+    /**
+     * Writes the next rows of the image
+     * @param pixels    pixels of the rows as 0xRRGGBB, row after row with no gaps
+     * @param rows      number of rows to write
+     * @throws IOException if writing to the stream fails
+     * @throws IllegalArgumentException if the pixels do not hold the given number of rows
+     * @throws IllegalStateException if the rows would go past the height of the image
+     */
+    public void writeRows(int[] pixels, int rows) throws IOException{
+        if (pixels == null || rows < 0 || (long)rows * width > pixels.length){
+            throw new IllegalArgumentException("Pixels do not hold " + rows + " rows");
+        }
+        if (rowsWritten + rows > height){
+            throw new IllegalStateException("Image has only " + height + " rows");
+        }
+        for (int y = 0; y < rows; y++){
+            int offset = y * width;
+            int position = 1;
+            for (int x = 0; x < width; x++){
+                int pixel = pixels[offset + x];
+                row[position++] = (byte)(pixel >> 16);
+                row[position++] = (byte)(pixel >> 8);
+                row[position++] = (byte)pixel;
+            }
+            imageData.write(row);
+        }
+        rowsWritten += rows;
+    }
+
+    /**
+     * Finishes the image data and writes the end of the PNG file. The deflater is always ended and the underlying
+     * stream closed, also when the image is not complete
+     * @throws IOException if writing to the stream fails or not all the rows of the image were written
+     */
+    @Override
+    public void close() throws IOException{
+        try {
+            if (rowsWritten != height){
+                throw new IOException("Only " + rowsWritten + " of " + height + " rows were written");
+            }
+            imageData.close();
+            writeChunk("IEND", new byte[0], 0);
+        } finally {
+            deflater.end();
+            out.close();
+        }
+    }
+
+    /**
+     * Writes one PNG chunk: length, type, data and the checksum of type and data
+     * @param type      four letter type of the chunk
+     * @param data      data of the chunk
+     * @param length    number of bytes of the data to write
+     * @throws IOException if writing to the stream fails
+     */
+    private void writeChunk(String type, byte[] data, int length) throws IOException{
+        byte[] typeBytes = type.getBytes(StandardCharsets.US_ASCII);
+        byte[] number = new byte[4];
+        writeInt(number, 0, length);
+        out.write(number);
+        out.write(typeBytes);
+        out.write(data, 0, length);
+        CRC32 crc = new CRC32();
+        crc.update(typeBytes);
+        crc.update(data, 0, length);
+        writeInt(number, 0, (int)crc.getValue());
+        out.write(number);
+    }
+
+    /**
+     * Writes an int in big endian order into the given array
+     * @param bytes     array to write into
+     * @param offset    index of the first byte
+     * @param value     the value to write
+     */
+    private static void writeInt(byte[] bytes, int offset, int value){
+        bytes[offset] = (byte)(value >>> 24);
+        bytes[offset + 1] = (byte)(value >>> 16);
+        bytes[offset + 2] = (byte)(value >>> 8);
+        bytes[offset + 3] = (byte)value;
+    }
+
+    /**
+     * Collects the compressed image data and writes it out as image data chunks of a bounded size
+     */
+    private class ChunkOutputStream extends OutputStream{
+        /** compressed data not written yet */
+        private byte[] buffer = new byte[CHUNK_SIZE];
+        /** number of bytes in the buffer */
+        private int count;
+
+        /**
+         * Adds one byte of compressed data
+         * @param b the byte to add
+         * @throws IOException if writing to the stream fails
+         */
+        @Override
+        public void write(int b) throws IOException{
+            if (count == buffer.length){
+                flushChunk();
+            }
+            buffer[count++] = (byte)b;
+        }
+
+        /**
+         * Adds compressed data
+         * @param bytes     array with the data
+         * @param offset    index of the first byte to add
+         * @param length    number of bytes to add
+         * @throws IOException if writing to the stream fails
+         */
+        @Override
+        public void write(byte[] bytes, int offset, int length) throws IOException{
+            while (length > 0){
+                if (count == buffer.length){
+                    flushChunk();
+                }
+                int copied = Math.min(length, buffer.length - count);
+                System.arraycopy(bytes, offset, buffer, count, copied);
+                count += copied;
+                offset += copied;
+                length -= copied;
+            }
+        }
+
+        /**
+         * Writes out the remaining compressed data, the underlying stream is left open for the end chunk
+         * @throws IOException if writing to the stream fails
+         */
+        @Override
+        public void close() throws IOException{
+            flushChunk();
+        }
+
+        /**
+         * Writes the collected data as one image data chunk
+         * @throws IOException if writing to the stream fails
+         */
+        private void flushChunk() throws IOException{
+            if (count > 0){
+                writeChunk("IDAT", buffer, count);
+                count = 0;
+            }
+        }
+    }
+}
@@ -0,0 +1,116 @@
+import javax.swing.SwingUtilities;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+
+/**
+ * Renders previews of the fractals on a background thread while the settings are being changed. Every new request
+ * cancels the one before it, so only the latest settings are rendered, and only finished images of the latest
+ * request are handed over on the event dispatch thread. Uses its own fractal model, so the model being displayed is
+ * never touched
+ *
+ * @author Iulia Bejsovec
+ * @version 10/2026
+ */
+public class PreviewRenderer{
+    /** single background thread rendering the previews */
+    private ExecutorService executor;
+    /** fractal model used only by the background thread */
+    private GenerateFractal fractals;
+    /** receives the finished previews on the event dispatch thread */
+    private Consumer<BufferedImage> publisher;
+    /** preview being rendered, only used on the event dispatch thread */
+    private Future<?> inFlight;
+    /** number of the latest request, only used on the event dispatch thread */
+    private long latestRequest;
+
+    /**
+     * Creates the renderer handing the finished previews to the given publisher
+     * @param publisher receives the finished previews on the event dispatch thread
+     * @throws IllegalArgumentException if publisher is null
+     */
+    public PreviewRenderer(Consumer<BufferedImage> publisher){
+        if (publisher == null){
+            throw new IllegalArgumentException("Publisher cannot be null");
+        }
+        this.publisher = publisher;
+        fractals = new GenerateFractal();
+        executor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "fractal-preview");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Starts rendering a preview with the given settings, cancelling the preview being rendered. Must be called on
+     * the event dispatch thread
+     * @param recursionDepth    depth of recursion of fractals
+     * @param radiusRatio       radius ratio of the child to the parent
+     * @param degree            degree of the position of the child to the parent
+     * @param palette           colors of the pears and of the levels of the cactus
+     * @param width             width of the preview
+     * @param height            height of the preview
+     * @param background        background color of the preview
+     */
+    public void request(int recursionDepth, int radiusRatio, int degree, LevelPalette palette, int width,
+                        int height, Color background){
+        cancel();
+        if (width <= 0 || height <= 0){
+            return;
+        }
+        long request = latestRequest;
+        inFlight = executor.submit(() -> render(request, recursionDepth, radiusRatio, degree, palette, width, height,
+                                                background));
+    }
+
+    /**
+     * Cancels the preview being rendered, so it is never handed over. Must be called on the event dispatch thread
+     */
+    public void cancel(){
+        latestRequest++;
+        if (inFlight != null){
+            inFlight.cancel(true);
+            inFlight = null;
+        }
+    }
+
+    /**
+     * Renders one preview on the background thread and hands it over if it is still the latest request
+     * @param request           number of the request
+     * @param recursionDepth    depth of recursion of fractals
+     * @param radiusRatio       radius ratio of the child to the parent
+     * @param degree            degree of the position of the child to the parent
+     * @param palette           colors of the pears and of the levels of the cactus
+     * @param width             width of the preview
+     * @param height            height of the preview
+     * @param background        background color of the preview
+     */
+    private void render(long request, int recursionDepth, int radiusRatio, int degree, LevelPalette palette,
+                        int width, int height, Color background){
+        fractals.setData(recursionDepth, radiusRatio, degree, palette);
+        fractals.getData(width, height);
+        if (Thread.currentThread().isInterrupted()){
+            return;
+        }
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = image.createGraphics();
+        g.setColor(background);
+        g.fillRect(0, 0, width, height);
+        fractals.draw(g);
+        g.dispose();
+        if (Thread.currentThread().isInterrupted()){
+            return;
+        }
+        SwingUtilities.invokeLater(() -> {
+            if (request == latestRequest){
+                inFlight = null;
+                publisher.accept(image);
+            }
+        });
+    }
+}
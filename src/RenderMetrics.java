@@ -0,0 +1,263 @@
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * Counters of the work done generating and painting the fractals, with the time and size of the last generation and
+ * painting. Every count is atomic, so the generator, the painters and the tile workers can all report at once, and
+ * reading never waits for them. Can be registered as a JMX MBean
+ *
+ * @author Iulia Bejsovec
+ * @version 10/2026
+ */
+public class RenderMetrics implements RenderMetricsMBean{
+    /** name the metrics are registered under by default */
+    public static final String DEFAULT_NAME = "opuntia:type=RenderMetrics";
+    /** number of full generations */
+    private final AtomicLong generations;
+    /** number of generations that only changed the recursion depth */
+    private final AtomicLong incrementalGenerations;
+    /** number of generations served by the geometry cache */
+    private final AtomicLong cacheHits;
+    /** number of loads from geometry files */
+    private final AtomicLong loads;
+    /** number of paintings */
+    private final AtomicLong paints;
+    /** number of circles painted by all paintings */
+    private final AtomicLong circlesPainted;
+    /** number of frames never shown */
+    private final AtomicLong droppedFrames;
+    /** time of the last generation in nanoseconds */
+    private volatile long lastGenerationNanos;
+    /** number of fractals of the last generation */
+    private volatile int lastGenerationFractals;
+    /** time of the last painting in nanoseconds */
+    private volatile long lastPaintNanos;
+    /** number of circles of the last painting */
+    private volatile int lastPaintCircles;
+
+    /**
+     * Creates metrics with every count at 0
+     */
+    public RenderMetrics(){
+        generations = new AtomicLong();
+        incrementalGenerations = new AtomicLong();
+        cacheHits = new AtomicLong();
+        loads = new AtomicLong();
+        paints = new AtomicLong();
+        circlesPainted = new AtomicLong();
+        droppedFrames = new AtomicLong();
+    }
+
+    /**
+     * Records a full generation
+     * @param nanos     time it took in nanoseconds
+     * @param fractals  number of fractals generated
+     */
+    public void recordGeneration(long nanos, int fractals){
+        generations.incrementAndGet();
+        setLastGeneration(nanos, fractals);
+    }
+
+    /**
+     * Records a generation that only changed the recursion depth of the fractals before
+     * @param nanos     time it took in nanoseconds
+     * @param fractals  number of fractals after the change
+     */
+    public void recordIncrementalGeneration(long nanos, int fractals){
+        incrementalGenerations.incrementAndGet();
+        setLastGeneration(nanos, fractals);
+    }
+
+    /**
+     * Records fractals copied from the geometry cache
+     * @param nanos     time it took in nanoseconds
+     * @param fractals  number of fractals copied
+     */
+    public void recordCacheHit(long nanos, int fractals){
+        cacheHits.incrementAndGet();
+        setLastGeneration(nanos, fractals);
+    }
+
+    /**
+     * Records fractals loaded from a geometry file
+     * @param nanos     time it took in nanoseconds
+     * @param fractals  number of fractals loaded
+     */
+    public void recordLoad(long nanos, int fractals){
+        loads.incrementAndGet();
+        setLastGeneration(nanos, fractals);
+    }
+
+    /**
+     * Records a painting of the fractals
+     * @param nanos     time it took in nanoseconds
+     * @param circles   number of circles painted
+     */
+    public void recordPaint(long nanos, int circles){
+        paints.incrementAndGet();
+        circlesPainted.addAndGet(circles);
+        lastPaintNanos = nanos;
+        lastPaintCircles = circles;
+    }
+
+    /**
+     * Records frames that were never shown
+     * @param frames    number of frames dropped
+     */
+    public void recordDroppedFrames(long frames){
+        if (frames > 0){
+            droppedFrames.addAndGet(frames);
+        }
+    }
+
+    /**
+     * Sets the time and size of the last generation
+     * @param nanos     time it took in nanoseconds
+     * @param fractals  number of fractals it made
+     */
+    private void setLastGeneration(long nanos, int fractals){
+        lastGenerationNanos = nanos;
+        lastGenerationFractals = fractals;
+    }
+
+    /**
+     * Retrieves the number of full generations of the fractals
+     * @return the number of generations
+     */
+    @Override
+    public long getGenerations(){
+        return generations.get();
+    }
+
+    /**
+     * Retrieves the number of generations that only changed the recursion depth of the fractals before
+     * @return the number of incremental generations
+     */
+    @Override
+    public long getIncrementalGenerations(){
+        return incrementalGenerations.get();
+    }
+
+    /**
+     * Retrieves the number of times the fractals were copied from the geometry cache instead of generated
+     * @return the number of cache hits
+     */
+    @Override
+    public long getCacheHits(){
+        return cacheHits.get();
+    }
+
+    /**
+     * Retrieves the number of times the fractals were loaded from a geometry file
+     * @return the number of loads
+     */
+    @Override
+    public long getLoads(){
+        return loads.get();
+    }
+
+    /**
+     * Retrieves the number of paintings of the fractals
+     * @return the number of paints
+     */
+    @Override
+    public long getPaints(){
+        return paints.get();
+    }
+
+    /**
+     * Retrieves the number of circles painted by all paintings
+     * @return the number of circles painted
+     */
+    @Override
+    public long getCirclesPainted(){
+        return circlesPainted.get();
+    }
+
+    /**
+     * Retrieves the number of frames that were never shown, because a newer change came in before they were
+     * @return the number of dropped frames
+     */
+    @Override
+    public long getDroppedFrames(){
+        return droppedFrames.get();
+    }
+
+    /**
+     * Retrieves the time the last generation took
+     * @return the time in nanoseconds, 0 if there was none
+     */
+    @Override
+    public long getLastGenerationNanos(){
+        return lastGenerationNanos;
+    }
+
+    /**
+     * Retrieves the number of fractals made by the last generation
+     * @return the number of fractals
+     */
+    @Override
+    public int getLastGenerationFractals(){
+        return lastGenerationFractals;
+    }
+
+    /**
+     * Retrieves the time the last painting took
+     * @return the time in nanoseconds, 0 if there was none
+     */
+    @Override
+    public long getLastPaintNanos(){
+        return lastPaintNanos;
+    }
+
+    /**
+     * Retrieves the number of circles of the last painting
+     * @return the number of circles
+     */
+    @Override
+    public int getLastPaintCircles(){
+        return lastPaintCircles;
+    }
+
+    /**
+     * Sets all counters and last values back to 0
+     */
+    @Override
+    public void reset(){
+        generations.set(0);
+        incrementalGenerations.set(0);
+        cacheHits.set(0);
+        loads.set(0);
+        paints.set(0);
+        circlesPainted.set(0);
+        droppedFrames.set(0);
+        lastGenerationNanos = 0;
+        lastGenerationFractals = 0;
+        lastPaintNanos = 0;
+        lastPaintCircles = 0;
+    }
+
+    /**
+     * Registers the metrics with the platform MBean server under the given name
+     * @param name  object name to register under, for example DEFAULT_NAME
+     * @throws JMException if the name is not valid or already taken
+     */
+    public void register(String name) throws JMException{
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        server.registerMBean(this, new ObjectName(name));
+    }
+
+    /**
+     * Creates a line of text with the counts, for logs
+     * @return the counts
+     */
+    @Override
+    public String toString(){
+        return "generations: " + getGenerations() + ", incremental: " + getIncrementalGenerations() +
+               ", cache hits: " + getCacheHits() + ", loads: " + getLoads() + ", paints: " + getPaints() +
+               ", circles painted: " + getCirclesPainted() + ", dropped frames: " + getDroppedFrames();
+    }
+}
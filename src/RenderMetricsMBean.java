@@ -0,0 +1,78 @@
+/**
+ * Management interface of the render metrics, so they can be watched with JConsole or any other JMX client
+ *
+ * @author Iulia Bejsovec
+ * @version 10/2026
+ */
+public interface RenderMetricsMBean{
+    /**
+     * Retrieves the number of full generations of the fractals
+     * @return the number of generations
+     */
+    long getGenerations();
+
+    /**
+     * Retrieves the number of generations that only changed the recursion depth of the fractals before
+     * @return the number of incremental generations
+     */
+    long getIncrementalGenerations();
+
+    /**
+     * Retrieves the number of times the fractals were copied from the geometry cache instead of generated
+     * @return the number of cache hits
+     */
+    long getCacheHits();
+
+    /**
+     * Retrieves the number of times the fractals were loaded from a geometry file
+     * @return the number of loads
+     */
+    long getLoads();
+
+    /**
+     * Retrieves the number of paintings of the fractals
+     * @return the number of paints
+     */
+    long getPaints();
+
+    /**
+     * Retrieves the number of circles painted by all paintings
+     * @return the number of circles painted
+     */
+    long getCirclesPainted();
+
+    /**
+     * Retrieves the number of frames that were never shown, because a newer change came in before they were
+     * @return the number of dropped frames
+     */
+    long getDroppedFrames();
+
+    /**
+     * Retrieves the time the last generation took
+     * @return the time in nanoseconds, 0 if there was none
+     */
+    long getLastGenerationNanos();
+
+    /**
+     * Retrieves the number of fractals made by the last generation
+     * @return the number of fractals
+     */
+    int getLastGenerationFractals();
+
+    /**
+     * Retrieves the time the last painting took
+     * @return the time in nanoseconds, 0 if there was none
+     */
+    long getLastPaintNanos();
+
+    /**
+     * Retrieves the number of circles of the last painting
+     * @return the number of circles
+     */
+    int getLastPaintCircles();
+
+    /**
+     * Sets all counters and last values back to 0
+     */
+    void reset();
+}
@@ -0,0 +1,172 @@
+import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/**
+ * Draws a CactusScene. Instances outside the view are skipped from the bounds of their prototype. Small instances
+ * are drawn as a sprite: an image of the prototype rendered once per power of two size and scaled down to the
+ * instance, so a field of hundreds of far away cacti costs hundreds of image copies. Big instances are drawn from the
+ * shared fractals of their prototype, scaled and moved, with only the fractals inside the view drawn. Only meant to
+ * be used on one thread such as the event dispatch thread
+ *
+ * @author Iulia Bejsovec
+ * @version 10/2026
+ */
+public class SceneRenderer{
+    /** biggest side in view pixels of an instance drawn as a sprite, bigger instances are drawn from the fractals */
+    public static final int MAX_SPRITE_SIZE = 256;
+    /** side of the smallest sprite */
+    private static final int MIN_SPRITE_SIZE = 16;
+    /** sprites of every prototype, forgotten with the prototype */
+    private Map<CactusScene.Prototype, Sprites> sprites;
+    /** number of instances of the last drawing drawn as sprites */
+    private int spriteInstances;
+    /** number of instances of the last drawing drawn from the fractals */
+    private int geometryInstances;
+    /** number of instances of the last drawing outside the view */
+    private int culledInstances;
+
+    /**
+     * Sprites of one prototype, one per power of two size from MIN_SPRITE_SIZE to MAX_SPRITE_SIZE
+     */
+    private static class Sprites{
+        /** size of the prototype the sprites were rendered from */
+        private final int prototypeSize;
+        /** the sprites by size, smallest first, null until one is needed */
+        private final BufferedImage[] images;
+
+        /**
+         * Creates the sprites of a prototype, none rendered yet
+         * @param prototypeSize size of the prototype the sprites are rendered from
+         */
+        private Sprites(int prototypeSize){
+            this.prototypeSize = prototypeSize;
+            images = new BufferedImage[Integer.numberOfTrailingZeros(MAX_SPRITE_SIZE / MIN_SPRITE_SIZE) + 1];
+        }
+    }
+
+    /**
+     * Creates the renderer with no sprites yet
+     */
+    public SceneRenderer(){
+        sprites = new WeakHashMap<>();
+    }
+
+    /**
+     * Draws every instance of the scene as seen through the viewport, generating the prototypes first if they are
+     * too small for how big their instances are shown. The view is the clip of the graphics object, or the given
+     * size if there is no clip
+     * @param g         graphic object to be drawn on
+     * @param scene     the scene
+     * @param viewport  zoom and pan of the view, the identity viewport showing the scene at its own coordinates
+     * @param width     width of the view
+     * @param height    height of the view
+     * @throws IllegalArgumentException if scene or viewport is null
+     */
+    public void draw(Graphics2D g, CactusScene scene, Viewport viewport, int width, int height){
+        if (scene == null || viewport == null){
+            throw new IllegalArgumentException("Scene and viewport cannot be null");
+        }
+        Rectangle clip = g.getClipBounds();
+        Rectangle view = clip != null ? clip : new Rectangle(0, 0, width, height);
+        double viewScale = viewport.getScale();
+        scene.prepare(viewScale);
+        spriteInstances = 0;
+        geometryInstances = 0;
+        culledInstances = 0;
+        Graphics2D sceneGraphics = (Graphics2D)g.create();
+        sceneGraphics.clip(view);
+        sceneGraphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+        for (int i = 0; i < scene.size(); i++){
+            CactusScene.Instance instance = scene.getInstance(i);
+            CactusScene.Prototype prototype = instance.getPrototype();
+            double size = instance.getSize() * viewScale;
+            // view pixels per pixel of the prototype, and where the point (0, 0) of the prototype is drawn
+            double scale = size / prototype.getSize();
+            double left = viewport.toViewX(instance.getX()) - size / 2;
+            double top = viewport.toViewY(instance.getY()) - size;
+            Rectangle bounds = prototype.getBounds();
+            if (left + (bounds.x + bounds.width) * scale < view.x || left + bounds.x * scale > view.x + view.width ||
+                top + (bounds.y + bounds.height) * scale < view.y || top + bounds.y * scale > view.y + view.height){
+                culledInstances++;
+                continue;
+            }
+            if (size <= MAX_SPRITE_SIZE){
+                BufferedImage sprite = getSprite(prototype, size);
+                sceneGraphics.drawImage(sprite, (int)Math.floor(left), (int)Math.floor(top),
+                                        Math.max(1, (int)Math.round(size)), Math.max(1, (int)Math.round(size)), null);
+                spriteInstances++;
+            } else {
+                prototype.getFractals().drawInstance(sceneGraphics, left, top, scale);
+                geometryInstances++;
+            }
+        }
+        sceneGraphics.dispose();
+    }
+
+    /**
+     * Retrieves the smallest sprite of a prototype at least as big as the given size, rendering it if needed
+     * @param prototype the prototype, generated
+     * @param size      side in view pixels the sprite is drawn at, at most MAX_SPRITE_SIZE
+     * @return the sprite
+     */
+    private BufferedImage getSprite(CactusScene.Prototype prototype, double size){
+        Sprites prototypeSprites = sprites.get(prototype);
+        if (prototypeSprites == null || prototypeSprites.prototypeSize != prototype.getSize()){
+            // the prototype was generated bigger, with more detail for the sprites too
+            prototypeSprites = new Sprites(prototype.getSize());
+            sprites.put(prototype, prototypeSprites);
+        }
+        int level = 0;
+        while ((MIN_SPRITE_SIZE << level) < size){
+            level++;
+        }
+        if (prototypeSprites.images[level] == null){
+            int side = MIN_SPRITE_SIZE << level;
+            BufferedImage sprite = new BufferedImage(side, side, BufferedImage.TYPE_INT_ARGB);
+            Graphics2D g = sprite.createGraphics();
+            g.clipRect(0, 0, side, side);
+            prototype.getFractals().drawInstance(g, 0, 0, (double)side / prototype.getSize());
+            g.dispose();
+            prototypeSprites.images[level] = sprite;
+        }
+        return prototypeSprites.images[level];
+    }
+
+    /**
+     * Returns the number of instances of the last drawing drawn as sprites
+     * @return the number of sprite instances
+     */
+    public int getSpriteInstances(){
+        return spriteInstances;
+    }
+
+    /**
+     * Returns the number of instances of the last drawing drawn from the fractals of their prototype
+     * @return the number of geometry instances
+     */
+    public int getGeometryInstances(){
+        return geometryInstances;
+    }
+
+    /**
+     * Returns the number of instances of the last drawing skipped because they were outside the view
+     * @return the number of culled instances
+     */
+    public int getCulledInstances(){
+        return culledInstances;
+    }
+
+    /**
+     * Describes how the instances of the last drawing were drawn
+     * @return the numbers on one line
+     */
+    @Override
+    public String toString(){
+        return String.format("scene: %d sprites, %d from geometry, %d culled", spriteInstances, geometryInstances,
+                             culledInstances);
+    }
+}
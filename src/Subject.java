@@ -36,7 +36,7 @@ public interface Subject {
     
     /**
      * Updating subject's state with the given values
-     * @param recurstionDepth       recursion depth of the subject
+     * @param recurstionDepth       recursion depth of the subject (2 to 30, deep levels are cut by level of detail)
      * @param childRadiusToParent   ratio of the child's radius to parent's
      * @param degree                degree of the position of the child to the parent
      * @param cactusColor           color of the cactus part
@@ -44,4 +44,13 @@ public interface Subject {
      */
     void  setData(int recurstionDepth, double childRadiusToParent,
                   int degree, Color cactusColor, Color pearColor);
+
+    /**
+     * Updating subject's state with the given values, coloring the levels with the given palette
+     * @param recurstionDepth       recursion depth of the subject (2 to 30, deep levels are cut by level of detail)
+     * @param childRadiusToParent   ratio of the child's radius to parent's
+     * @param degree                degree of the position of the child to the parent
+     * @param palette               colors of the pears and of the levels of the cactus
+     */
+    void  setData(int recurstionDepth, double childRadiusToParent, int degree, LevelPalette palette);
 }
\ No newline at end of file
@@ -0,0 +1,423 @@
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Renders a sweep of the fractal settings without any window into numbered PNG files, one per frame, for example to
+ * make a video. The depth, radius ratio and degree are given at keyframes and go linearly from one keyframe to the
+ * next, the depth and degree rounded to whole numbers. The frames are spread over a pool of threads, each with its
+ * own fractal model and one image it renders every frame into, so the memory used only depends on the number of
+ * threads and the frame size. A manifest lists the settings of every frame. Every frame is written to a temporary
+ * file first and moved to its name when finished, so a run that was interrupted can be started again on the same
+ * directory and only renders the frames that are missing
+ *
+ * @author Iulia Bejsovec
+ * @version 10/2026
+ */
+public class SweepExporter{
+    /** name of the manifest file in the directory */
+    public static final String MANIFEST_NAME = "manifest.csv";
+    /** name of a frame file, formatted with the number of the frame */
+    private static final String FRAME_NAME = "frame_%06d.png";
+    /** prefix of the temporary files of unfinished frames */
+    private static final String TEMPORARY_PREFIX = "frame";
+    /** suffix of the temporary files of unfinished frames */
+    private static final String TEMPORARY_SUFFIX = ".tmp";
+    /** settings at the keyframes, in frame order */
+    private ArrayList<Keyframe> keyframes;
+    /** colors of the pears and of the levels of the cactus */
+    private LevelPalette palette;
+    /** width of the frames */
+    private int width;
+    /** height of the frames */
+    private int height;
+    /** background color of the frames */
+    private Color background;
+    /** radius of the main parent, 0 to fit every frame */
+    private double startingRadius;
+    /** minimum subtree size in pixels, see GenerateFractal.setMinSubtreeSize */
+    private double minSubtreeSize;
+    /** number of threads rendering the frames */
+    private int threads;
+
+    /**
+     * Settings of the fractals at one frame of the sweep
+     */
+    public static class Keyframe{
+        /** number of the frame */
+        private final int frame;
+        /** depth of recursion of fractals */
+        private final int recursionDepth;
+        /** radius ratio of the child to the parent */
+        private final double radiusRatio;
+        /** degree of the position of the child to the parent */
+        private final double degree;
+
+        /**
+         * Creates the keyframe
+         * @param frame             number of the frame
+         * @param recursionDepth    depth of recursion of fractals
+         * @param radiusRatio       radius ratio of the child to the parent
+         * @param degree            degree of the position of the child to the parent
+         */
+        public Keyframe(int frame, int recursionDepth, double radiusRatio, double degree){
+            this.frame = frame;
+            this.recursionDepth = recursionDepth;
+            this.radiusRatio = radiusRatio;
+            this.degree = degree;
+        }
+
+        /**
+         * Retrieves the number of the frame
+         * @return the number of the frame
+         */
+        public int getFrame(){
+            return frame;
+        }
+
+        /**
+         * Retrieves the depth of recursion
+         * @return the depth of recursion of fractals
+         */
+        public int getRecursionDepth(){
+            return recursionDepth;
+        }
+
+        /**
+         * Retrieves the radius ratio
+         * @return the radius ratio of the child to the parent
+         */
+        public double getRadiusRatio(){
+            return radiusRatio;
+        }
+
+        /**
+         * Retrieves the degree
+         * @return the degree of the position of the child to the parent
+         */
+        public double getDegree(){
+            return degree;
+        }
+    }
+
+    /**
+     * Creates the exporter for frames of the given size, with no keyframes yet
+     * @param palette       colors of the pears and of the levels of the cactus
+     * @param width         width of the frames
+     * @param height        height of the frames
+     * @param background    background color of the frames
+     * @throws IllegalArgumentException if palette or background is null
+     * @throws IllegalArgumentException if width or height is not positive
+     */
+    public SweepExporter(LevelPalette palette, int width, int height, Color background){
+        if (palette == null){
+            throw new IllegalArgumentException("Palette cannot be null");
+        }
+        if (background == null){
+            throw new IllegalArgumentException("Color cannot be null");
+        }
+        if (width <= 0 || height <= 0){
+            throw new IllegalArgumentException("Width and height must be bigger than 0");
+        }
+        this.keyframes = new ArrayList<>();
+        this.palette = palette;
+        this.width = width;
+        this.height = height;
+        this.background = background;
+        this.minSubtreeSize = new GenerateFractal().getMinSubtreeSize();
+        this.threads = Runtime.getRuntime().availableProcessors();
+    }
+
+    /**
+     * Adds a keyframe after the ones added before. The first keyframe must be frame 0
+     * @param frame             number of the frame, bigger than the frame of the keyframe before
+     * @param recursionDepth    depth of recursion of fractals
+     * @param radiusRatio       radius ratio of the child to the parent
+     * @param degree            degree of the position of the child to the parent
+     * @throws IllegalArgumentException if the first frame is not 0 or the frame is not after the keyframe before
+     * @throws IllegalArgumentException if a setting is not valid for GenerateFractal.setData
+     */
+    public void addKeyframe(int frame, int recursionDepth, double radiusRatio, double degree){
+        if (keyframes.isEmpty() ? frame != 0 : frame <= keyframes.get(keyframes.size() - 1).getFrame()){
+            throw new IllegalArgumentException("Keyframes must start at frame 0 and go forward: " + frame);
+        }
+        // checks the settings now rather than on a worker thread
+        new GenerateFractal().setData(recursionDepth, radiusRatio, (int)Math.round(degree), palette);
+        keyframes.add(new Keyframe(frame, recursionDepth, radiusRatio, degree));
+    }
+
+    /**
+     * Returns the number of frames of the sweep, up to and including the last keyframe
+     * @return the number of frames, 0 without keyframes
+     */
+    public int getFrameCount(){
+        return keyframes.isEmpty() ? 0 : keyframes.get(keyframes.size() - 1).getFrame() + 1;
+    }
+
+    /**
+     * Finds the settings of a frame between the keyframes around it
+     * @param frame the number of the frame, 0 to getFrameCount() - 1
+     * @return the settings of the frame, with the depth and degree rounded
+     * @throws IndexOutOfBoundsException if the frame is not in the sweep
+     */
+    public Keyframe getFrame(int frame){
+        if (frame < 0 || frame >= getFrameCount()){
+            throw new IndexOutOfBoundsException("frame: " + frame);
+        }
+        int next = 0;
+        while (keyframes.get(next).getFrame() < frame){
+            next++;
+        }
+        Keyframe to = keyframes.get(next);
+        Keyframe from = next == 0 ? to : keyframes.get(next - 1);
+        double position = to == from ? 0 : (double)(frame - from.getFrame()) / (to.getFrame() - from.getFrame());
+        return new Keyframe(frame,
+                            (int)Math.round(from.getRecursionDepth() +
+                                            (to.getRecursionDepth() - from.getRecursionDepth()) * position),
+                            from.getRadiusRatio() + (to.getRadiusRatio() - from.getRadiusRatio()) * position,
+                            Math.round(from.getDegree() + (to.getDegree() - from.getDegree()) * position));
+    }
+
+    /**
+     * Retrieves the name of the file of a frame
+     * @param frame the number of the frame
+     * @return the name of the file in the directory
+     */
+    public static String getFrameName(int frame){
+        return String.format(Locale.ROOT, FRAME_NAME, frame);
+    }
+
+    /**
+     * Sets the radius of the main parent in every frame
+     * @param startingRadius    radius of the main parent, 0 to fit the fractals into every frame
+     * @throws IllegalArgumentException if starting radius is neither 0 nor at least 1
+     */
+    public void setStartingRadius(double startingRadius){
+        if (startingRadius != 0 && !(startingRadius >= 1)){
+            throw new IllegalArgumentException("Starting radius must be 0 or at least 1");
+        }
+        this.startingRadius = startingRadius;
+    }
+
+    /**
+     * Sets the minimum subtree size of the fractals, see GenerateFractal.setMinSubtreeSize
+     * @param minSubtreeSize    minimum subtree size in pixels
+     * @throws IllegalArgumentException if the size is not valid for GenerateFractal.setMinSubtreeSize
+     */
+    public void setMinSubtreeSize(double minSubtreeSize){
+        new GenerateFractal().setMinSubtreeSize(minSubtreeSize);
+        this.minSubtreeSize = minSubtreeSize;
+    }
+
+    /**
+     * Sets the number of threads rendering the frames. Every thread holds one frame image and the fractals of one
+     * frame
+     * @param threads   number of threads
+     * @throws IllegalArgumentException if the number of threads is not positive
+     */
+    public void setThreads(int threads){
+        if (threads <= 0){
+            throw new IllegalArgumentException("Number of threads must be positive");
+        }
+        this.threads = threads;
+    }
+
+    /**
+     * Renders the frames missing from the directory. The manifest is written first; a directory whose manifest
+     * describes another sweep is refused, so frames of different sweeps are never mixed. Temporary files left by an
+     * interrupted run are deleted
+     * @param directory directory of the frames, created if missing
+     * @return the number of frames rendered, not counting the ones already there
+     * @throws IllegalStateException if there are no keyframes
+     * @throws IOException if the directory holds another sweep or writing a file fails or is interrupted
+     */
+    public int export(Path directory) throws IOException{
+        if (keyframes.isEmpty()){
+            throw new IllegalStateException("The sweep has no keyframes");
+        }
+        Files.createDirectories(directory);
+        writeManifest(directory);
+        try (DirectoryStream<Path> leftovers = Files.newDirectoryStream(directory,
+                TEMPORARY_PREFIX + "*" + TEMPORARY_SUFFIX)){
+            for (Path leftover : leftovers){
+                Files.deleteIfExists(leftover);
+            }
+        }
+        AtomicInteger nextFrame = new AtomicInteger();
+        AtomicInteger rendered = new AtomicInteger();
+        int workers = Math.min(threads, getFrameCount());
+        ExecutorService pool = Executors.newFixedThreadPool(workers);
+        try {
+            ArrayList<Future<Void>> results = new ArrayList<>();
+            for (int i = 0; i < workers; i++){
+                results.add(pool.submit(() -> {
+                    renderFrames(directory, nextFrame, rendered);
+                    return null;
+                }));
+            }
+            for (Future<Void> result : results){
+                result.get();
+            }
+        } catch (InterruptedException e){
+            Thread.currentThread().interrupt();
+            throw new IOException("Rendering was interrupted", e);
+        } catch (ExecutionException e){
+            if (e.getCause() instanceof IOException){
+                throw (IOException)e.getCause();
+            }
+            throw new IOException("Rendering a frame failed", e.getCause());
+        } finally {
+            pool.shutdownNow();
+        }
+        return rendered.get();
+    }
+
+    /**
+     * Renders the frames not claimed by another worker yet, one after another into the same image with the same
+     * fractal model, until none are left
+     * @param directory     directory of the frames
+     * @param nextFrame     number of the next frame nobody claimed
+     * @param rendered      counts the frames rendered
+     * @throws IOException if writing a frame fails or the worker is interrupted
+     */
+    private void renderFrames(Path directory, AtomicInteger nextFrame, AtomicInteger rendered) throws IOException{
+        GenerateFractal fractals = new GenerateFractal();
+        // the frames are spread over the threads already, and every frame is generated once
+        fractals.setParallel(false);
+        fractals.getGeometryCache().setMaxBytes(0);
+        fractals.setMinSubtreeSize(minSubtreeSize);
+        BufferedImage image = null;
+        int count = getFrameCount();
+        for (int frame = nextFrame.getAndIncrement(); frame < count; frame = nextFrame.getAndIncrement()){
+            if (Thread.currentThread().isInterrupted()){
+                throw new IOException("Rendering was interrupted");
+            }
+            Path file = directory.resolve(getFrameName(frame));
+            if (Files.exists(file)){
+                continue;
+            }
+            if (image == null){
+                image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+            }
+            Keyframe settings = getFrame(frame);
+            fractals.setData(settings.getRecursionDepth(), settings.getRadiusRatio(), (int)settings.getDegree(),
+                             palette);
+            Graphics2D g = image.createGraphics();
+            g.setColor(background);
+            g.fillRect(0, 0, width, height);
+            g.dispose();
+            fractals.getData(width, height, startingRadius > 0 ? startingRadius
+                                                               : fractals.getFittingRadius(width, height));
+            fractals.drawRaster(image, 0, image.getHeight(), false);
+            writeFrame(file, ((DataBufferInt)image.getRaster().getDataBuffer()).getData());
+            rendered.incrementAndGet();
+        }
+    }
+
+    /**
+     * Writes the pixels of a frame as a PNG file, first to a temporary file which is then moved to its name
+     * @param file      file of the frame
+     * @param pixels    pixels of the frame as 0xRRGGBB, row after row
+     * @throws IOException if writing the file fails
+     */
+    private void writeFrame(Path file, int[] pixels) throws IOException{
+        Path temporary = Files.createTempFile(file.getParent(), TEMPORARY_PREFIX, TEMPORARY_SUFFIX);
+        try {
+            try (PngWriter writer = new PngWriter(new BufferedOutputStream(Files.newOutputStream(temporary)),
+                                                  width, height)){
+                writer.writeRows(pixels, height);
+            }
+            moveInPlace(temporary, file);
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+    }
+
+    /**
+     * Moves a finished file to its name, atomically where the file system can
+     * @param temporary the finished file
+     * @param file      the name to move it to
+     * @throws IOException if moving fails
+     */
+    private static void moveInPlace(Path temporary, Path file) throws IOException{
+        try {
+            Files.move(temporary, file, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e){
+            Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /**
+     * Writes the manifest listing the settings of the sweep and of every frame, or checks that the manifest already
+     * in the directory is the same
+     * @param directory directory of the frames
+     * @throws IOException if the directory holds another sweep or writing fails
+     */
+    private void writeManifest(Path directory) throws IOException{
+        Path file = directory.resolve(MANIFEST_NAME);
+        byte[] manifest = getManifest().getBytes(StandardCharsets.UTF_8);
+        if (Files.exists(file)){
+            if (!Arrays.equals(Files.readAllBytes(file), manifest)){
+                throw new IOException(directory + " holds the frames of another sweep");
+            }
+            return;
+        }
+        Path temporary = Files.createTempFile(directory, TEMPORARY_PREFIX, TEMPORARY_SUFFIX);
+        try {
+            try (OutputStream out = Files.newOutputStream(temporary)){
+                out.write(manifest);
+            }
+            moveInPlace(temporary, file);
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+    }
+
+    /**
+     * Describes the sweep: the settings shared by all frames on comment lines, then one line per frame
+     * @return the text of the manifest
+     */
+    private String getManifest(){
+        StringBuilder manifest = new StringBuilder();
+        manifest.append(String.format(Locale.ROOT, "# width %d height %d radius %s lod %s background %s palette",
+                                      width, height, startingRadius > 0 ? startingRadius : "fit", minSubtreeSize,
+                                      toHex(background)));
+        for (Color color : palette.getColors()){
+            manifest.append(' ').append(toHex(color));
+        }
+        manifest.append('\n').append("frame,file,depth,ratio,degree\n");
+        for (int frame = 0; frame < getFrameCount(); frame++){
+            Keyframe settings = getFrame(frame);
+            manifest.append(String.format(Locale.ROOT, "%d,%s,%d,%.4f,%d\n", frame, getFrameName(frame),
+                                          settings.getRecursionDepth(), settings.getRadiusRatio(),
+                                          (int)settings.getDegree()));
+        }
+        return manifest.toString();
+    }
+
+    /**
+     * Writes a color as #AARRGGBB
+     * @param color the color
+     * @return the color in hexadecimal
+     */
+    private static String toHex(Color color){
+        return String.format(Locale.ROOT, "#%08X", color.getRGB());
+    }
+}
@@ -0,0 +1,535 @@
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+/**
+ * Square tiles of the fractals at several zoom levels, for views and prints that show the same regions again and
+ * again. Zoom level z shows the whole cactus 2^z times bigger than the given size, cut into tiles from the top left
+ * corner. A tile is looked up in memory first, then on disk, and only rendered when it is in neither; tiles missing
+ * from a range are rendered in parallel, all from one copy of the settings taken when the range was asked for. The
+ * disk tier keeps one file per tile under a directory named after the hash of the settings and reads the files
+ * through memory mapping. Every file starts with all the settings it was rendered with, so a tile of other settings
+ * whose hash is the same is rendered again instead of shown
+ *
+ * @author Iulia Bejsovec
+ * @version 10/2026
+ */
+public class TilePyramid{
+    /** default side of a tile in pixels */
+    public static final int DEFAULT_TILE_SIZE = 256;
+    /** deepest zoom level, the tile numbers of the whole level still fit an int */
+    public static final int MAX_ZOOM = 20;
+    /** default number of tiles kept in memory */
+    private static final int DEFAULT_MEMORY_TILES = 256;
+    /** first int of every tile file */
+    private static final int MAGIC = 0x4F505449;
+    /** version of the tile files and of how tiles are drawn, raised when either changes */
+    private static final int FORMAT_VERSION = 2;
+    /** fractals the tiles show */
+    private GenerateFractal allFractals;
+    /** width the whole cactus fits at zoom level 0 */
+    private int width;
+    /** height the whole cactus fits at zoom level 0 */
+    private int height;
+    /** background color of the tiles */
+    private Color background;
+    /** side of a tile in pixels */
+    private int tileSize;
+    /** directory of the disk tier, null when tiles are only kept in memory */
+    private Path directory;
+    /** tiles kept in memory, in the order from least to most recently used */
+    private LinkedHashMap<String, BufferedImage> memory;
+    /** most tiles kept in memory */
+    private int maxMemoryTiles;
+    /** number of tiles found in memory */
+    private long memoryHits;
+    /** number of tiles found on disk */
+    private long diskHits;
+    /** number of tiles rendered */
+    private long renders;
+
+    /**
+     * Creates the pyramid for the given fractals
+     * @param fractals      fractals the tiles show, with their data already set
+     * @param width         width the whole cactus fits at zoom level 0
+     * @param height        height the whole cactus fits at zoom level 0
+     * @param background    background color of the tiles
+     * @param directory     directory of the disk tier, null to only keep tiles in memory
+     * @throws IllegalArgumentException if fractals or background is null
+     * @throws IllegalArgumentException if width or height is not positive
+     */
+    public TilePyramid(GenerateFractal fractals, int width, int height, Color background, Path directory){
+        if (fractals == null){
+            throw new IllegalArgumentException("Fractals cannot be null");
+        }
+        if (background == null){
+            throw new IllegalArgumentException("Color cannot be null");
+        }
+        if (width <= 0 || height <= 0){
+            throw new IllegalArgumentException("Width and height must be bigger than 0");
+        }
+        this.allFractals = fractals;
+        this.width = width;
+        this.height = height;
+        this.background = background;
+        this.directory = directory;
+        this.tileSize = DEFAULT_TILE_SIZE;
+        this.maxMemoryTiles = DEFAULT_MEMORY_TILES;
+        memory = new LinkedHashMap<>(16, 0.75f, true);
+    }
+
+    /**
+     * Sets the side of a tile, dropping the tiles kept in memory
+     * @param tileSize  side of a tile in pixels
+     * @throws IllegalArgumentException if the tile size is not positive
+     */
+    public synchronized void setTileSize(int tileSize){
+        if (tileSize <= 0){
+            throw new IllegalArgumentException("Tile size must be positive");
+        }
+        this.tileSize = tileSize;
+        memory.clear();
+    }
+
+    /**
+     * Retrieves the side of a tile
+     * @return side of a tile in pixels
+     */
+    public synchronized int getTileSize(){
+        return tileSize;
+    }
+
+    /**
+     * Sets the most tiles kept in memory, dropping the least recently used ones that do not fit anymore
+     * @param maxMemoryTiles    most tiles kept in memory, 0 keeps tiles only on disk
+     * @throws IllegalArgumentException if the number is negative
+     */
+    public synchronized void setMaxMemoryTiles(int maxMemoryTiles){
+        if (maxMemoryTiles < 0){
+            throw new IllegalArgumentException("Number of tiles cannot be negative");
+        }
+        this.maxMemoryTiles = maxMemoryTiles;
+        trimMemory();
+    }
+
+    /**
+     * Counts the columns of tiles of a zoom level
+     * @param zoom  the zoom level
+     * @return number of columns
+     */
+    public int getColumns(int zoom){
+        checkZoom(zoom);
+        return (int)((((long)width << zoom) + getTileSize() - 1) / getTileSize());
+    }
+
+    /**
+     * Counts the rows of tiles of a zoom level
+     * @param zoom  the zoom level
+     * @return number of rows
+     */
+    public int getRows(int zoom){
+        checkZoom(zoom);
+        return (int)((((long)height << zoom) + getTileSize() - 1) / getTileSize());
+    }
+
+    /**
+     * Retrieves one tile, rendering it if it is neither in memory nor on disk. The tile is shared with the cache and
+     * must not be drawn on
+     * @param zoom      the zoom level
+     * @param column    column of the tile
+     * @param row       row of the tile
+     * @return the tile
+     * @throws IOException if the disk tier cannot be read or written
+     */
+    public BufferedImage getTile(int zoom, int column, int row) throws IOException{
+        checkTile(zoom, column, row);
+        TileSettings settings = takeSettings();
+        return getTile(settings, settings.createModel(), zoom, column, row);
+    }
+
+    /**
+     * Retrieves one tile of the given settings, rendering it with the given model if it is neither in memory nor on
+     * disk
+     * @param settings  settings of the tile
+     * @param model     fractals with the settings, only used by the pyramid
+     * @param zoom      the zoom level
+     * @param column    column of the tile
+     * @param row       row of the tile
+     * @return the tile
+     * @throws IOException if the disk tier cannot be read or written
+     */
+    private BufferedImage getTile(TileSettings settings, GenerateFractal model, int zoom, int column, int row)
+            throws IOException{
+        String tileName = "/" + zoom + "/" + column + "_" + row;
+        String key = settings.getDescription() + tileName;
+        synchronized (this){
+            BufferedImage tile = memory.get(key);
+            if (tile != null){
+                memoryHits++;
+                return tile;
+            }
+        }
+        String fileName = settings.getKey() + tileName;
+        BufferedImage tile = readTile(fileName, settings);
+        if (tile != null){
+            synchronized (this){
+                diskHits++;
+            }
+        } else {
+            tile = renderTile(settings, model, zoom, column, row);
+            writeTile(fileName, settings, tile);
+            synchronized (this){
+                renders++;
+            }
+        }
+        synchronized (this){
+            memory.put(key, tile);
+            trimMemory();
+        }
+        return tile;
+    }
+
+    /**
+     * Retrieves a range of tiles of one zoom level, the ones not in memory are looked up or rendered in parallel. All
+     * the tiles have the settings of the moment the range was asked for, even if they change while rendering
+     * @param zoom  the zoom level
+     * @param tiles columns and rows of the tiles
+     * @return the tiles row after row, shared with the cache and must not be drawn on
+     * @throws IOException if the disk tier cannot be read or written
+     */
+    public BufferedImage[] getTiles(int zoom, Rectangle tiles) throws IOException{
+        checkTile(zoom, tiles.x, tiles.y);
+        checkTile(zoom, tiles.x + tiles.width - 1, tiles.y + tiles.height - 1);
+        TileSettings settings = takeSettings();
+        GenerateFractal model = settings.createModel();
+        ArrayList<Future<BufferedImage>> futures = new ArrayList<>();
+        for (int row = tiles.y; row < tiles.y + tiles.height; row++){
+            for (int column = tiles.x; column < tiles.x + tiles.width; column++){
+                int tileColumn = column;
+                int tileRow = row;
+                futures.add(ForkJoinPool.commonPool().submit(() -> getTile(settings, model, zoom, tileColumn,
+                                                                           tileRow)));
+            }
+        }
+        BufferedImage[] result = new BufferedImage[futures.size()];
+        try {
+            for (int i = 0; i < result.length; i++){
+                result[i] = futures.get(i).get();
+            }
+        } catch (InterruptedException e){
+            Thread.currentThread().interrupt();
+            throw new IOException("Rendering the tiles was interrupted", e);
+        } catch (ExecutionException e){
+            if (e.getCause() instanceof IOException){
+                throw (IOException)e.getCause();
+            }
+            throw new IOException("Rendering a tile failed", e.getCause());
+        }
+        return result;
+    }
+
+    /**
+     * Calculates the hash of everything that changes how the tiles look, used to name the directory of the tiles
+     * @return the parameter hash as 16 hexadecimal digits
+     */
+    public String getParameterKey(){
+        return takeSettings().getKey();
+    }
+
+    /**
+     * Copies everything that changes how the tiles look. The parameters of the fractals are read while holding
+     * their lock, so they all come from the same setData
+     * @return the settings
+     */
+    private TileSettings takeSettings(){
+        int size = getTileSize();
+        synchronized (allFractals){
+            return new TileSettings(allFractals.getRecursionDepth(), allFractals.getRadiusRatio(),
+                                    (int)Math.round(Math.toDegrees(allFractals.getDegree())),
+                                    allFractals.getMinSubtreeSize(), allFractals.isExactTrigonometry(),
+                                    allFractals.getPalette(), background.getRGB(), width, height, size);
+        }
+    }
+
+    /**
+     * Drops all the tiles kept in memory, the disk tier and the counters are kept
+     */
+    public synchronized void clearMemory(){
+        memory.clear();
+    }
+
+    /**
+     * Retrieves the number of tiles found in memory
+     * @return the number of memory hits
+     */
+    public synchronized long getMemoryHits(){
+        return memoryHits;
+    }
+
+    /**
+     * Retrieves the number of tiles found on disk
+     * @return the number of disk hits
+     */
+    public synchronized long getDiskHits(){
+        return diskHits;
+    }
+
+    /**
+     * Retrieves the number of tiles rendered
+     * @return the number of rendered tiles
+     */
+    public synchronized long getRenders(){
+        return renders;
+    }
+
+    /**
+     * Renders one tile, generating only the fractals inside it
+     * @param settings  settings of the tile
+     * @param model     fractals with the settings
+     * @param zoom      the zoom level
+     * @param column    column of the tile
+     * @param row       row of the tile
+     * @return the rendered tile
+     */
+    private static BufferedImage renderTile(TileSettings settings, GenerateFractal model, int zoom, int column,
+                                            int row){
+        int size = settings.tileSize;
+        Viewport viewport = new Viewport();
+        viewport.zoom(0, 0, 1L << zoom);
+        viewport.pan(-(double)column * size, -(double)row * size);
+        BufferedImage tile = new BufferedImage(size, size, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = tile.createGraphics();
+        g.setColor(new Color(settings.background));
+        g.fillRect(0, 0, size, size);
+        g.setClip(0, 0, size, size);
+        model.drawView(g, viewport, settings.width, settings.height);
+        g.dispose();
+        return tile;
+    }
+
+    /**
+     * Reads a tile from the disk tier through memory mapping, if the file starts with the given settings
+     * @param name      name of the tile, also its path under the directory
+     * @param settings  settings of the tile
+     * @return the tile, null if there is no disk tier, the tile is not on disk or has other settings
+     * @throws IOException if the file cannot be read
+     */
+    private BufferedImage readTile(String name, TileSettings settings) throws IOException{
+        if (directory == null){
+            return null;
+        }
+        Path file = directory.resolve(name + ".tile");
+        if (!Files.exists(file)){
+            return null;
+        }
+        int size = settings.tileSize;
+        ByteBuffer header = settings.getHeader();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)){
+            if (channel.size() != header.remaining() + (long)size * size * Integer.BYTES){
+                return null;
+            }
+            MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            ByteBuffer fileHeader = mapped.duplicate();
+            fileHeader.limit(header.remaining());
+            if (!fileHeader.equals(header)){
+                return null;
+            }
+            mapped.position(header.remaining());
+            BufferedImage tile = new BufferedImage(size, size, BufferedImage.TYPE_INT_RGB);
+            mapped.asIntBuffer().get(((DataBufferInt)tile.getRaster().getDataBuffer()).getData());
+            return tile;
+        }
+    }
+
+    /**
+     * Writes a tile to the disk tier, starting with its settings. The tile is written to a temporary file first and
+     * then moved in place, so a reader never sees half a tile
+     * @param name      name of the tile, also its path under the directory
+     * @param settings  settings of the tile
+     * @param tile      the tile
+     * @throws IOException if the file cannot be written
+     */
+    private void writeTile(String name, TileSettings settings, BufferedImage tile) throws IOException{
+        if (directory == null){
+            return;
+        }
+        Path file = directory.resolve(name + ".tile");
+        Files.createDirectories(file.getParent());
+        int[] pixels = ((DataBufferInt)tile.getRaster().getDataBuffer()).getData();
+        ByteBuffer header = settings.getHeader();
+        ByteBuffer bytes = ByteBuffer.allocate(header.remaining() + pixels.length * Integer.BYTES);
+        bytes.put(header);
+        bytes.asIntBuffer().put(pixels);
+        bytes.rewind();
+        Path temporary = Files.createTempFile(file.getParent(), "tile", ".tmp");
+        try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.WRITE)){
+            while (bytes.hasRemaining()){
+                channel.write(bytes);
+            }
+        }
+        try {
+            Files.move(temporary, file, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e){
+            Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /**
+     * Drops the least recently used tiles kept in memory until the limit is met
+     */
+    private synchronized void trimMemory(){
+        Iterator<String> leastRecent = memory.keySet().iterator();
+        while (memory.size() > maxMemoryTiles && leastRecent.hasNext()){
+            leastRecent.next();
+            leastRecent.remove();
+        }
+    }
+
+    /**
+     * Checks if the zoom level is between 0 and MAX_ZOOM
+     * @param zoom  the zoom level
+     * @throws IllegalArgumentException if the zoom level is out of range
+     */
+    private void checkZoom(int zoom){
+        if (zoom < 0 || zoom > MAX_ZOOM){
+            throw new IllegalArgumentException("Zoom level must be between 0 and " + MAX_ZOOM);
+        }
+    }
+
+    /**
+     * Checks if the tile is one of the tiles of the zoom level
+     * @param zoom      the zoom level
+     * @param column    column of the tile
+     * @param row       row of the tile
+     * @throws IllegalArgumentException if the zoom level or the tile is out of range
+     */
+    private void checkTile(int zoom, int column, int row){
+        if (column < 0 || row < 0 || column >= getColumns(zoom) || row >= getRows(zoom)){
+            throw new IllegalArgumentException("No tile at column " + column + ", row " + row + " of zoom " + zoom);
+        }
+    }
+
+    /**
+     * Everything that changes how the tiles look, copied at one moment
+     */
+    private static class TileSettings{
+        /** depth of recursion of the fractals */
+        private final int recursionDepth;
+        /** radius ratio of the child to the parent in percent */
+        private final int radiusRatio;
+        /** degree of the position of the child to the parent */
+        private final int degree;
+        /** size in pixels under which a subtree is not descended into */
+        private final double minSubtreeSize;
+        /** whether the directions of the children are computed exactly */
+        private final boolean exactTrigonometry;
+        /** colors of the pears and of the levels of the cactus */
+        private final LevelPalette palette;
+        /** background color of the tiles as RGB */
+        private final int background;
+        /** width the whole cactus fits at zoom level 0 */
+        private final int width;
+        /** height the whole cactus fits at zoom level 0 */
+        private final int height;
+        /** side of a tile in pixels */
+        private final int tileSize;
+
+        /**
+         * Creates the settings with the given values
+         * @param recursionDepth    depth of recursion of the fractals
+         * @param radiusRatio       radius ratio of the child to the parent in percent
+         * @param degree            degree of the position of the child to the parent
+         * @param minSubtreeSize    size in pixels under which a subtree is not descended into
+         * @param exactTrigonometry whether the directions of the children are computed exactly
+         * @param palette           colors of the pears and of the levels of the cactus
+         * @param background        background color of the tiles as RGB
+         * @param width             width the whole cactus fits at zoom level 0
+         * @param height            height the whole cactus fits at zoom level 0
+         * @param tileSize          side of a tile in pixels
+         */
+        TileSettings(int recursionDepth, int radiusRatio, int degree, double minSubtreeSize,
+                     boolean exactTrigonometry, LevelPalette palette, int background, int width, int height,
+                     int tileSize){
+            this.recursionDepth = recursionDepth;
+            this.radiusRatio = radiusRatio;
+            this.degree = degree;
+            this.minSubtreeSize = minSubtreeSize;
+            this.exactTrigonometry = exactTrigonometry;
+            this.palette = palette;
+            this.background = background;
+            this.width = width;
+            this.height = height;
+            this.tileSize = tileSize;
+        }
+
+        /**
+         * Creates fractals with these settings for rendering tiles, which nothing else changes
+         * @return the fractals
+         */
+        GenerateFractal createModel(){
+            GenerateFractal model = new GenerateFractal();
+            model.setData(recursionDepth, radiusRatio, degree, palette);
+            model.setMinSubtreeSize(minSubtreeSize);
+            model.setExactTrigonometry(exactTrigonometry);
+            return model;
+        }
+
+        /**
+         * Writes every setting and the format version in the order they start a tile file
+         * @return the header of a tile file, from its start to its end
+         */
+        ByteBuffer getHeader(){
+            ByteBuffer header = ByteBuffer.allocate(11 * Integer.BYTES + Double.BYTES + palette.size() * Integer.BYTES);
+            header.putInt(MAGIC).putInt(FORMAT_VERSION).putInt(tileSize).putInt(width).putInt(height);
+            header.putInt(recursionDepth).putInt(radiusRatio).putInt(degree).putDouble(minSubtreeSize);
+            header.putInt(exactTrigonometry ? 1 : 0).putInt(background).putInt(palette.size());
+            for (int entry = 0; entry < palette.size(); entry++){
+                header.putInt(palette.getColor(entry).getRGB());
+            }
+            header.flip();
+            return header;
+        }
+
+        /**
+         * Lists every setting and the format version, used to find the tiles kept in memory
+         * @return the settings as text
+         */
+        String getDescription(){
+            StringBuilder description = new StringBuilder();
+            ByteBuffer header = getHeader();
+            while (header.hasRemaining()){
+                description.append(String.format("%02x", header.get()));
+            }
+            return description.toString();
+        }
+
+        /**
+         * Calculates the hash of the settings and the format version, used to name the directory of the tiles
+         * @return the hash as 16 hexadecimal digits
+         */
+        String getKey(){
+            long hash = 17;
+            ByteBuffer header = getHeader();
+            while (header.remaining() >= Integer.BYTES){
+                hash = 31 * hash + header.getInt();
+            }
+            return String.format("%016x", hash);
+        }
+    }
+}
@@ -0,0 +1,384 @@
+import java.awt.Color;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Writes the fractals as vector graphics (SVG or PDF) for print. The fractals go straight from the generator to the
+ * file through a buffered channel and are never stored, so memory does not grow with the recursion depth. The
+ * circles are written in the order they are drawn on the screen, in one pass of the generator, and every run of
+ * circles of one palette entry shares one style block (an SVG group or one PDF fill color). Children smaller than
+ * the tolerance are not written, their parent becomes the pear instead
+ *
+ * @author Iulia Bejsovec
+ * @version 10/2026
+ */
+public class VectorExporter{
+    /** default smallest diameter of a written circle */
+    private static final double DEFAULT_TOLERANCE = 0.5;
+    /** size of the buffer in front of the file */
+    private static final int BUFFER_SIZE = 64 * 1024;
+    /** distance of the control points of a quarter circle drawn as a cubic curve, as a fraction of the radius */
+    private static final double KAPPA = 0.5522847498;
+    /** number of circles filled by one PDF fill operator */
+    private static final int CIRCLES_PER_FILL = 1000;
+    /** fractals to be exported */
+    private GenerateFractal allFractals;
+    /** width of the output */
+    private int width;
+    /** height of the output */
+    private int height;
+    /** background color of the output */
+    private Color background;
+    /** smallest diameter of a written circle */
+    private double tolerance;
+    /** number of circles written by the last export */
+    private long circles;
+
+    /**
+     * Creates the exporter for the given fractals and output size
+     * @param fractals      fractals to be exported, with their data already set
+     * @param width         width of the output
+     * @param height        height of the output
+     * @param background    background color of the output
+     * @throws IllegalArgumentException if fractals or background is null
+     * @throws IllegalArgumentException if width or height is not positive
+     */
+    public VectorExporter(GenerateFractal fractals, int width, int height, Color background){
+        if (fractals == null){
+            throw new IllegalArgumentException("Fractals cannot be null");
+        }
+        if (background == null){
+            throw new IllegalArgumentException("Color cannot be null");
+        }
+        if (width <= 0 || height <= 0){
+            throw new IllegalArgumentException("Width and height must be bigger than 0");
+        }
+        this.allFractals = fractals;
+        this.width = width;
+        this.height = height;
+        this.background = background;
+        this.tolerance = DEFAULT_TOLERANCE;
+    }
+
+    /**
+     * Sets the smallest diameter of a written circle, smaller children are dropped and their parent becomes the pear
+     * @param tolerance the smallest diameter in output units
+     * @throws IllegalArgumentException if the tolerance is negative
+     */
+    public void setTolerance(double tolerance){
+        if (!(tolerance >= 0)){
+            throw new IllegalArgumentException("Tolerance cannot be negative");
+        }
+        this.tolerance = tolerance;
+    }
+
+    /**
+     * Retrieves the smallest diameter of a written circle
+     * @return the tolerance in output units
+     */
+    public double getTolerance(){
+        return tolerance;
+    }
+
+    /**
+     * Retrieves the number of circles written by the last export
+     * @return the number of circles
+     */
+    public long getCircleCount(){
+        return circles;
+    }
+
+    /**
+     * Writes the fractals scaled by the given starting radius as an SVG file
+     * @param file              the file to write
+     * @param startingRadius    radius of the main parent
+     * @throws IOException if writing the file fails
+     */
+    public void exportSvg(Path file, double startingRadius) throws IOException{
+        circles = 0;
+        try (Output out = new Output(file)){
+            out.text("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n<svg xmlns=\"http://www.w3.org/2000/svg\" width=\"")
+               .number(width, 0).text("\" height=\"").number(height, 0).text("\" viewBox=\"0 0 ")
+               .number(width, 0).text(" ").number(height, 0).text("\">\n<rect width=\"100%\" height=\"100%\" fill=\"")
+               .text(toHex(background)).text("\"/>\n");
+            LevelPalette palette = allFractals.getPalette();
+            int[] runEntry = {-1};
+            visit(startingRadius, (x, y, radius, depth, pear) -> {
+                int entry = palette.getEntry(depth, pear);
+                if (entry != runEntry[0]){
+                    if (runEntry[0] >= 0){
+                        out.text("</g>\n");
+                    }
+                    out.text("<g fill=\"").text(toHex(palette.getColor(entry))).text("\">\n");
+                    runEntry[0] = entry;
+                }
+                out.text("<circle cx=\"").number(x, 2).text("\" cy=\"").number(y, 2).text("\" r=\"")
+                   .number(radius, 2).text("\"/>\n");
+                circles++;
+            });
+            if (runEntry[0] >= 0){
+                out.text("</g>\n");
+            }
+            out.text("</svg>\n");
+        } catch (UncheckedIOException e){
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * Writes the fractals scaled by the given starting radius as a single page PDF file, one unit being one point.
+     * The content stream is written as the circles are generated and its length is written after it
+     * @param file              the file to write
+     * @param startingRadius    radius of the main parent
+     * @throws IOException if writing the file fails
+     */
+    public void exportPdf(Path file, double startingRadius) throws IOException{
+        circles = 0;
+        long[] offsets = new long[6];
+        try (Output out = new Output(file)){
+            out.text("%PDF-1.4\n");
+            offsets[1] = out.position();
+            out.text("1 0 obj\n<< /Type /Catalog /Pages 2 0 R >>\nendobj\n");
+            offsets[2] = out.position();
+            out.text("2 0 obj\n<< /Type /Pages /Kids [3 0 R] /Count 1 >>\nendobj\n");
+            offsets[3] = out.position();
+            out.text("3 0 obj\n<< /Type /Page /Parent 2 0 R /MediaBox [0 0 ").number(width, 0).text(" ")
+               .number(height, 0).text("] /Contents 4 0 R >>\nendobj\n");
+            offsets[4] = out.position();
+            out.text("4 0 obj\n<< /Length 5 0 R >>\nstream\n");
+            long streamStart = out.position();
+            // flip the y axis so the coordinates are the same as on the screen
+            out.text("1 0 0 -1 0 ").number(height, 0).text(" cm\n");
+            fillColor(out, background).text("0 0 ").number(width, 0).text(" ").number(height, 0).text(" re f\n");
+            LevelPalette palette = allFractals.getPalette();
+            // palette entry of the run being written and the number of its circles not filled yet
+            int[] runEntry = {-1};
+            int[] unfilled = {0};
+            visit(startingRadius, (x, y, radius, depth, pear) -> {
+                int entry = palette.getEntry(depth, pear);
+                if (entry != runEntry[0]){
+                    if (unfilled[0] > 0){
+                        out.text("f\n");
+                        unfilled[0] = 0;
+                    }
+                    fillColor(out, palette.getColor(entry));
+                    runEntry[0] = entry;
+                }
+                circlePath(out, x, y, radius);
+                circles++;
+                if (++unfilled[0] == CIRCLES_PER_FILL){
+                    out.text("f\n");
+                    unfilled[0] = 0;
+                }
+            });
+            if (unfilled[0] > 0){
+                out.text("f\n");
+            }
+            long streamLength = out.position() - streamStart;
+            out.text("endstream\nendobj\n");
+            offsets[5] = out.position();
+            out.text("5 0 obj\n").number(streamLength, 0).text("\nendobj\n");
+            long xref = out.position();
+            out.text("xref\n0 6\n0000000000 65535 f \n");
+            for (int i = 1; i < offsets.length; i++){
+                out.text(String.format("%010d 00000 n \n", offsets[i]));
+            }
+            out.text("trailer\n<< /Size 6 /Root 1 0 R >>\nstartxref\n").number(xref, 0).text("\n%%EOF\n");
+        } catch (UncheckedIOException e){
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * Generates the fractals and hands them to the visitor in drawing order
+     * @param startingRadius    radius of the main parent
+     * @param visitor           receives the fractals
+     */
+    private void visit(double startingRadius, FractalVisitor visitor){
+        double minRadius = tolerance / 2;
+        allFractals.visitFractals(width/2, height - startingRadius, startingRadius, null,
+                                  childRadius -> childRadius >= minRadius, visitor);
+    }
+
+    /**
+     * Writes a circle as a closed PDF path of four cubic curves
+     * @param out       the output
+     * @param x         x coordinate of the center point
+     * @param y         y coordinate of the center point
+     * @param radius    radius of the circle
+     */
+    private static void circlePath(Output out, double x, double y, double radius){
+        double k = radius * KAPPA;
+        out.number(x + radius, 2).text(" ").number(y, 2).text(" m\n");
+        curve(out, x + radius, y + k, x + k, y + radius, x, y + radius);
+        curve(out, x - k, y + radius, x - radius, y + k, x - radius, y);
+        curve(out, x - radius, y - k, x - k, y - radius, x, y - radius);
+        curve(out, x + k, y - radius, x + radius, y - k, x + radius, y);
+        out.text("h\n");
+    }
+
+    /**
+     * Writes one cubic curve of a PDF path
+     * @param out   the output
+     * @param x1    x coordinate of the first control point
+     * @param y1    y coordinate of the first control point
+     * @param x2    x coordinate of the second control point
+     * @param y2    y coordinate of the second control point
+     * @param x3    x coordinate of the end point
+     * @param y3    y coordinate of the end point
+     */
+    private static void curve(Output out, double x1, double y1, double x2, double y2, double x3, double y3){
+        out.number(x1, 2).text(" ").number(y1, 2).text(" ").number(x2, 2).text(" ").number(y2, 2).text(" ")
+           .number(x3, 2).text(" ").number(y3, 2).text(" c\n");
+    }
+
+    /**
+     * Writes a PDF operator setting the fill color
+     * @param out   the output
+     * @param color the fill color
+     * @return the output
+     */
+    private static Output fillColor(Output out, Color color){
+        return out.number(color.getRed() / 255.0, 3).text(" ").number(color.getGreen() / 255.0, 3).text(" ")
+                  .number(color.getBlue() / 255.0, 3).text(" rg\n");
+    }
+
+    /**
+     * Converts a color to the #rrggbb notation
+     * @param color the color
+     * @return the color as #rrggbb
+     */
+    private static String toHex(Color color){
+        return String.format("#%06x", color.getRGB() & 0xFFFFFF);
+    }
+
+    /**
+     * Buffered ASCII output to a file channel that counts the bytes written, so PDF objects can be located. Writing
+     * fails with an UncheckedIOException, so it can be used from a visitor
+     */
+    private static class Output implements AutoCloseable{
+        /** channel of the file */
+        private WritableByteChannel channel;
+        /** buffer in front of the channel */
+        private ByteBuffer buffer;
+        /** bytes already handed to the channel */
+        private long written;
+        /** digits of a number, filled from the end */
+        private byte[] digits;
+
+        /**
+         * Opens the file for writing, replacing it if it exists
+         * @param file  the file to write
+         * @throws IOException if the file cannot be opened
+         */
+        Output(Path file) throws IOException{
+            channel = Files.newByteChannel(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                                           StandardOpenOption.TRUNCATE_EXISTING);
+            buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+            digits = new byte[20];
+        }
+
+        /**
+         * Writes ASCII text
+         * @param text  the text
+         * @return this output
+         */
+        Output text(String text){
+            for (int i = 0; i < text.length(); i++){
+                put((byte)text.charAt(i));
+            }
+            return this;
+        }
+
+        /**
+         * Writes a number rounded to the given decimals, without trailing zeros
+         * @param value     the number
+         * @param decimals  number of decimals to round to, at most 6
+         * @return this output
+         */
+        Output number(double value, int decimals){
+            long factor = 1;
+            for (int i = 0; i < decimals; i++){
+                factor *= 10;
+            }
+            long scaled = Math.round(value * factor);
+            if (scaled < 0){
+                put((byte)'-');
+                scaled = -scaled;
+            }
+            long fraction = scaled % factor;
+            long whole = scaled / factor;
+            int start = digits.length;
+            do {
+                digits[--start] = (byte)('0' + whole % 10);
+                whole /= 10;
+            } while (whole > 0);
+            for (int i = start; i < digits.length; i++){
+                put(digits[i]);
+            }
+            if (fraction != 0){
+                put((byte)'.');
+                for (long digit = factor / 10; fraction != 0; digit /= 10){
+                    put((byte)('0' + fraction / digit));
+                    fraction %= digit;
+                }
+            }
+            return this;
+        }
+
+        /**
+         * Retrieves the number of bytes written so far
+         * @return the position in the file
+         */
+        long position(){
+            return written + buffer.position();
+        }
+
+        /**
+         * Writes one byte, emptying the buffer into the channel when it is full
+         * @param b the byte
+         */
+        private void put(byte b){
+            if (!buffer.hasRemaining()){
+                flush();
+            }
+            buffer.put(b);
+        }
+
+        /**
+         * Hands the buffered bytes to the channel
+         * @throws UncheckedIOException if writing fails
+         */
+        private void flush(){
+            buffer.flip();
+            try {
+                while (buffer.hasRemaining()){
+                    written += channel.write(buffer);
+                }
+            } catch (IOException e){
+                throw new UncheckedIOException(e);
+            }
+            buffer.clear();
+        }
+
+        /**
+         * Writes the rest of the buffer and closes the file
+         * @throws IOException if writing or closing fails
+         */
+        @Override
+        public void close() throws IOException{
+            try {
+                flush();
+            } catch (UncheckedIOException e){
+                channel.close();
+                throw e.getCause();
+            }
+            channel.close();
+        }
+    }
+}
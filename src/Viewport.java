@@ -0,0 +1,113 @@
+/**
+ * Zoom and pan of a view of the fractals. Maps the coordinates the fractals have when the whole cactus is shown
+ * (the world) to the coordinates of the view: a world point is scaled and then moved, so the identity viewport shows
+ * the same picture as drawing the generated fractals. Every change increases the version, so a view can tell whether
+ * what it rendered before is still up to date
+ *
+ * @author Iulia Bejsovec
+ * @version 10/2026
+ */
+public class Viewport{
+    /** smallest scale, the whole cactus is a few pixels big */
+    public static final double MIN_SCALE = 0.05;
+    /** biggest scale, the smallest fractals of the deepest recursion are big and doubles are still precise enough */
+    public static final double MAX_SCALE = 1e12;
+    /** number of view pixels per world pixel */
+    private double scale;
+    /** x coordinate in the view of the world's origin */
+    private double translateX;
+    /** y coordinate in the view of the world's origin */
+    private double translateY;
+    /** version of the zoom and pan, changes with every change */
+    private long version;
+
+    /**
+     * Creates the identity viewport, showing the whole cactus
+     */
+    public Viewport(){
+        reset();
+    }
+
+    /**
+     * Goes back to showing the whole cactus
+     */
+    public void reset(){
+        scale = 1;
+        translateX = 0;
+        translateY = 0;
+        version++;
+    }
+
+    /**
+     * Zooms by the given factor keeping the given view point in place, for example the point under the cursor.
+     * The scale stays between MIN_SCALE and MAX_SCALE
+     * @param x         x coordinate in the view of the point to keep in place
+     * @param y         y coordinate in the view of the point to keep in place
+     * @param factor    factor to zoom by, bigger than 1 to zoom in and smaller than 1 to zoom out
+     * @throws IllegalArgumentException if the factor is not positive
+     */
+    public void zoom(double x, double y, double factor){
+        if (!(factor > 0)){
+            throw new IllegalArgumentException("Zoom factor must be positive");
+        }
+        double newScale = Math.max(MIN_SCALE, Math.min(MAX_SCALE, scale * factor));
+        factor = newScale / scale;
+        translateX = x - (x - translateX) * factor;
+        translateY = y - (y - translateY) * factor;
+        scale = newScale;
+        version++;
+    }
+
+    /**
+     * Moves the view by the given distance, for example while the mouse drags it
+     * @param dx    distance to move right in view pixels
+     * @param dy    distance to move down in view pixels
+     */
+    public void pan(double dx, double dy){
+        translateX += dx;
+        translateY += dy;
+        version++;
+    }
+
+    /**
+     * Checks if the viewport shows the world unchanged
+     * @return true if nothing is zoomed or moved, false otherwise
+     */
+    public boolean isIdentity(){
+        return scale == 1 && translateX == 0 && translateY == 0;
+    }
+
+    /**
+     * Converts a world x coordinate to the view
+     * @param x the world x coordinate
+     * @return the x coordinate in the view
+     */
+    public double toViewX(double x){
+        return x * scale + translateX;
+    }
+
+    /**
+     * Converts a world y coordinate to the view
+     * @param y the world y coordinate
+     * @return the y coordinate in the view
+     */
+    public double toViewY(double y){
+        return y * scale + translateY;
+    }
+
+    /**
+     * Retrieves the number of view pixels per world pixel
+     * @return the scale
+     */
+    public double getScale(){
+        return scale;
+    }
+
+    /**
+     * Retrieves the version of the zoom and pan
+     * @return the version, changes with every zoom, pan or reset
+     */
+    public long getVersion(){
+        return version;
+    }
+}